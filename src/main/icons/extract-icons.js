@@ -0,0 +1,71 @@
+// Extrait des jeux d'icônes Iconify (@iconify-json/<préfixe>, version figée dans package.json)
+// les icônes utilisées par les templates et le contenu ({icon:svg('mdi:facebook')}), dans
+// target/generated-resources/icons/<préfixe>.json, lu par IconTemplateExtension.
+// Lancé par le build (npm run icons, voir pom.xml) ; échoue si une icône n'existe pas.
+const fs = require('fs');
+const path = require('path');
+
+const ROOTS = ['templates', 'content'];
+const OUTPUT = path.join('target', 'generated-resources', 'icons');
+const USAGE = /icon:svg\(\s*'([a-z0-9-]+):([a-z0-9-]+)'\s*\)/g;
+
+function walk(dir) {
+  if (!fs.existsSync(dir)) return [];
+  return fs.readdirSync(dir, { withFileTypes: true }).flatMap(entry => {
+    const file = path.join(dir, entry.name);
+    return entry.isDirectory() ? walk(file) : [file];
+  });
+}
+
+// Icône ou alias (un alias reprend son parent, avec ses propres propriétés)
+function resolve(set, name, depth = 0) {
+  if (set.icons[name]) return { ...set.icons[name] };
+  const alias = set.aliases && set.aliases[name];
+  if (!alias || depth > 5) return null;
+  const parent = resolve(set, alias.parent, depth + 1);
+  if (!parent) return null;
+  const { parent: _, ...props } = alias;
+  return { ...parent, ...props };
+}
+
+const used = new Map();
+for (const file of ROOTS.flatMap(walk).filter(file => /\.(html|md)$/.test(file))) {
+  for (const [, prefix, name] of fs.readFileSync(file, 'utf8').matchAll(USAGE)) {
+    if (!used.has(prefix)) used.set(prefix, new Set());
+    used.get(prefix).add(name);
+  }
+}
+
+fs.mkdirSync(OUTPUT, { recursive: true });
+for (const [prefix, names] of used) {
+  const dir = path.join('node_modules', '@iconify-json', prefix);
+  if (!fs.existsSync(dir)) {
+    console.error(`Jeu d'icônes @iconify-json/${prefix} absent de package.json`);
+    process.exitCode = 1;
+    continue;
+  }
+  const set = JSON.parse(fs.readFileSync(path.join(dir, 'icons.json'), 'utf8'));
+  const version = JSON.parse(fs.readFileSync(path.join(dir, 'package.json'), 'utf8')).version;
+  const icons = {};
+  for (const name of [...names].sort()) {
+    const icon = resolve(set, name);
+    if (!icon) {
+      console.error(`Icône ${prefix}:${name} introuvable dans @iconify-json/${prefix}@${version}`);
+      process.exitCode = 1;
+      continue;
+    }
+    icons[name] = icon;
+  }
+  const subset = {
+    prefix,
+    // Version du paquet dont viennent les icônes
+    version: `@iconify-json/${prefix}@${version}`,
+    info: set.info && { name: set.info.name, license: set.info.license, source: set.info.author && set.info.author.url },
+    // Taille par défaut d'Iconify : 16
+    width: set.width || 16,
+    height: set.height || 16,
+    icons
+  };
+  fs.writeFileSync(path.join(OUTPUT, `${prefix}.json`), JSON.stringify(subset, null, 2) + '\n');
+  console.log(`${Object.keys(icons).length} icônes ${prefix} extraites de @iconify-json/${prefix}@${version}`);
+}
@@ -0,0 +1,179 @@
+package fr.tc11;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.quarkus.runtime.ShutdownEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Build stage that publishes the files of public/ used by the templates under
+ * content-hashed names (/style.css -> /style.3f2a9c0d.css), so that browsers can
+ * cache them forever instead of revalidating them on every visit.
+ *
+ * Templates reference assets through {@code {asset:url('style.css')}} (see
+ * {@link AssetTemplateExtension}); the original files stay published as well.
+ * Once the site is generated, a {@code _headers} file (Netlify / Cloudflare Pages
+ * syntax) marks the hashed files, and those of the other content-hashed stages
+ * ({@code tc11.assets.immutable-paths}), as immutable with a one-year max-age, and an
+ * {@code asset-manifest.json} maps original paths to hashed ones.
+ *
+ * Only active while the site is generated (see {@link SiteOutput}); otherwise
+ * templates get the original paths.
+ */
+@ApplicationScoped
+public class AssetFingerprints {
+
+    private static final Logger LOG = Logger.getLogger(AssetFingerprints.class);
+
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final int HASH_LENGTH = 8;
+
+    @ConfigProperty(name = "tc11.assets.enabled", defaultValue = "true")
+    boolean enabled;
+
+    // Work directory of the headers and manifest files
+    @ConfigProperty(name = "tc11.assets.dir", defaultValue = "target/asset-fingerprints")
+    Path dir;
+
+    @ConfigProperty(name = "tc11.assets.headers-file", defaultValue = "_headers")
+    String headersFile;
+
+    @ConfigProperty(name = "tc11.assets.manifest-file", defaultValue = "asset-manifest.json")
+    String manifestFile;
+
+    // Other site paths whose files are content-hashed by their build stage
+    @ConfigProperty(name = "tc11.assets.immutable-paths", defaultValue = "/img/*,/instagram/*,/attachments/*")
+    List<String> immutablePaths;
+
+    @Inject
+    SiteOutput siteOutput;
+
+    @Inject
+    SiteFiles siteFiles;
+
+    @Inject
+    ContentHashes contentHashes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    // Original site path -> hashed site path
+    private final Map<String, String> urls = new ConcurrentHashMap<>();
+    // Original site path -> subresource integrity value
+    private final Map<String, String> integrities = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the URL to reference a file of public/ with.
+     *
+     * @param path path of the file in public/, with or without leading slash (style.css, /assets/logo.png)
+     * @return the hashed site path while the site is generated, the original path otherwise
+     *         (or if the file does not exist)
+     */
+    public String url(String path) {
+        String sitePath = path.startsWith("/") ? path : "/" + path;
+        if (!enabled || !siteOutput.isGenerating()) {
+            return sitePath;
+        }
+        return urls.computeIfAbsent(sitePath, this::fingerprint);
+    }
+
+    /**
+     * Returns the subresource integrity value of a file of public/, for the integrity
+     * attribute of a script or stylesheet: the browser refuses the file if it was altered.
+     *
+     * @param path path of the file in public/, with or without leading slash
+     * @return e.g. "sha384-oqVuAfXRKap7fdgcCY5uykM6+R9GqQ8K/uxy9rx7HNQlGYl1kPzQho1wx4JwY8wC",
+     *         or "" if the file does not exist
+     */
+    public String integrity(String path) {
+        String sitePath = path.startsWith("/") ? path : "/" + path;
+        return integrities.computeIfAbsent(sitePath, p -> {
+            Path source = source(p);
+            if (source == null) {
+                return "";
+            }
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-384");
+                try (InputStream input = new DigestInputStream(Files.newInputStream(source), digest)) {
+                    input.transferTo(OutputStream.nullOutputStream());
+                }
+                return "sha384-" + Base64.getEncoder().encodeToString(digest.digest());
+            } catch (IOException | NoSuchAlgorithmException e) {
+                LOG.warnf("Failed to hash asset %s: %s", source, e.getMessage());
+                return "";
+            }
+        });
+    }
+
+    private Path source(String sitePath) {
+        Path source = siteFiles.publicDir().resolve(sitePath.substring(1)).normalize();
+        if (!source.startsWith(siteFiles.publicDir()) || !Files.isRegularFile(source)) {
+            LOG.warnf("Asset %s not found in %s", sitePath, siteFiles.publicDir());
+            return null;
+        }
+        return source;
+    }
+
+    private String fingerprint(String sitePath) {
+        Path source = source(sitePath);
+        if (source == null) {
+            return sitePath;
+        }
+        try {
+            String hash = contentHashes.hash(source).substring(0, HASH_LENGTH);
+            int slash = sitePath.lastIndexOf('/');
+            int dot = sitePath.lastIndexOf('.');
+            String hashed = dot > slash
+                    ? sitePath.substring(0, dot) + "." + hash + sitePath.substring(dot)
+                    : sitePath + "." + hash;
+            return siteOutput.publish(hashed, source);
+        } catch (IOException e) {
+            LOG.warnf("Failed to hash asset %s: %s", source, e.getMessage());
+            return sitePath;
+        }
+    }
+
+    // Before SiteOutput copies the published files into the site
+    void onShutdown(@Observes @Priority(Interceptor.Priority.APPLICATION + 100) ShutdownEvent event) {
+        if (!enabled || !siteOutput.isGenerating()) {
+            return;
+        }
+        Map<String, String> assets = new TreeMap<>(urls);
+        // Missing assets kept their original path
+        assets.entrySet().removeIf(asset -> asset.getKey().equals(asset.getValue()));
+        StringBuilder headers = new StringBuilder("# Generated: content-hashed files never change\n");
+        immutablePaths.forEach(path -> headers.append(path).append("\n  Cache-Control: ").append(CACHE_CONTROL).append('\n'));
+        assets.values().forEach(hashed -> headers.append(hashed).append("\n  Cache-Control: ").append(CACHE_CONTROL).append('\n'));
+        try {
+            Files.createDirectories(dir);
+            Path headersPath = dir.resolve(headersFile);
+            Files.writeString(headersPath, headers, StandardCharsets.UTF_8);
+            Path manifestPath = dir.resolve(manifestFile);
+            objectMapper.writeValue(manifestPath.toFile(), assets);
+            siteOutput.publish("/" + headersFile, headersPath);
+            siteOutput.publish("/" + manifestFile, manifestPath);
+            LOG.infof("Fingerprinted %d assets", assets.size());
+        } catch (IOException e) {
+            LOG.warnf("Failed to write asset headers: %s", e.getMessage());
+        }
+    }
+}
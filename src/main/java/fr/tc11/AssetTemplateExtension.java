@@ -0,0 +1,46 @@
+package fr.tc11;
+
+import io.quarkus.qute.TemplateExtension;
+import jakarta.enterprise.inject.spi.CDI;
+
+/**
+ * Qute template extension to reference the files of public/ by content-hashed URLs.
+ *
+ * Usage in templates: {asset:url('style.css')} renders /style.3f2a9c0d.css when
+ * the site is generated, /style.css otherwise (see {@link AssetFingerprints}).
+ * {asset:integrity('vendor/leaflet/leaflet.js')} renders the value of an integrity
+ * attribute for the file.
+ */
+@TemplateExtension(namespace = "asset")
+public class AssetTemplateExtension {
+
+    // Cache the fingerprints instance, hashes are computed once per application run
+    private static volatile AssetFingerprints cachedFingerprints;
+
+    /**
+     * Returns the URL of a file of public/.
+     *
+     * @param path path of the file in public/, e.g. style.css or assets/tc11-logo.png
+     * @return site path to reference the file with
+     */
+    public static String url(String path) {
+        return fingerprints().url(path);
+    }
+
+    /**
+     * Returns the subresource integrity value of a file of public/.
+     *
+     * @param path path of the file in public/, e.g. vendor/alpinejs/cdn.min.js
+     * @return value of the integrity attribute, e.g. sha384-...
+     */
+    public static String integrity(String path) {
+        return fingerprints().integrity(path);
+    }
+
+    private static AssetFingerprints fingerprints() {
+        if (cachedFingerprints == null) {
+            cachedFingerprints = CDI.current().select(AssetFingerprints.class).get();
+        }
+        return cachedFingerprints;
+    }
+}
@@ -0,0 +1,459 @@
+package fr.tc11;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.ShutdownEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Index of the size, type and (for PDFs) page count and preview of the post
+ * attachments, so that pages can label large downloads and show a preview.
+ *
+ * Files are memory-mapped and only the parts needed are read: the magic bytes,
+ * and for a PDF its trailer, cross-reference table, catalog and page tree root
+ * (a few kilobytes whatever the size of the document). PDFs whose
+ * cross-reference table is compressed (PDF 1.5+ xref streams) fall back to a
+ * scan of the uncompressed page tree objects in the first and last
+ * {@value #SCAN_WINDOW} bytes. A malformed structure leaves the page count unknown.
+ *
+ * The preview of a PDF is its first embedded JPEG image (usually the cover
+ * picture of a flyer) found in the first window, scaled down: rendering a page
+ * would require a full PDF renderer. PDFs without such an image, or whose first
+ * page images are stored further in the file, have no preview.
+ *
+ * Entries are indexed by content hash (see {@link ContentHashes}) and kept in
+ * {@code tc11.attachments.metadata-file} between builds.
+ */
+@ApplicationScoped
+public class AttachmentMetadata {
+
+    private static final Logger LOG = Logger.getLogger(AttachmentMetadata.class);
+
+    private static final String SITE_PATH = "/attachments/";
+    // Bytes read around an object or at the end of the file
+    private static final int WINDOW = 4096;
+    // Bytes scanned at each end of the file when the structure does not lead to the data
+    private static final int SCAN_WINDOW = 256 * 1024;
+    // Largest embedded JPEG read for a preview
+    private static final int MAX_PREVIEW_BYTES = 4 * 1024 * 1024;
+    private static final Pattern STARTXREF = Pattern.compile("startxref\\s+(\\d+)");
+    private static final Pattern ROOT = Pattern.compile("/Root\\s+(\\d+)\\s+\\d+\\s+R");
+    private static final Pattern PREV = Pattern.compile("/Prev\\s+(\\d+)");
+    private static final Pattern PAGES = Pattern.compile("/Pages\\s+(\\d+)\\s+\\d+\\s+R");
+    private static final Pattern COUNT = Pattern.compile("/Count\\s+(\\d+)");
+    private static final Pattern LENGTH = Pattern.compile("/Length\\s+(\\d++)(?!\\s+\\d+\\s+R)");
+    private static final Pattern PAGES_DICT = Pattern.compile("<<(?:(?!<<|>>).)*?/Type\\s*/Pages\\b(?:(?!<<|>>).)*?>>", Pattern.DOTALL);
+    private static final Map<String, String> MIME_TYPES = Map.ofEntries(
+            Map.entry("pdf", "application/pdf"),
+            Map.entry("docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document"),
+            Map.entry("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+            Map.entry("pptx", "application/vnd.openxmlformats-officedocument.presentationml.presentation"),
+            Map.entry("odt", "application/vnd.oasis.opendocument.text"),
+            Map.entry("ods", "application/vnd.oasis.opendocument.spreadsheet"),
+            Map.entry("odp", "application/vnd.oasis.opendocument.presentation"),
+            Map.entry("zip", "application/zip"),
+            Map.entry("rar", "application/vnd.rar"),
+            Map.entry("txt", "text/plain"),
+            Map.entry("csv", "text/csv"));
+
+    @ConfigProperty(name = "tc11.attachments.metadata-file", defaultValue = "target/attachment-metadata.json")
+    Path file;
+
+    @ConfigProperty(name = "tc11.attachments.previews-dir", defaultValue = "target/attachment-previews")
+    Path previewsDir;
+
+    // Width of the PDF previews, in pixels
+    @ConfigProperty(name = "tc11.attachments.preview-width", defaultValue = "320")
+    int previewWidth;
+
+    // Attachments above this size are flagged as large downloads
+    @ConfigProperty(name = "tc11.attachments.large-size-kb", defaultValue = "1024")
+    long largeSizeKb;
+
+    @Inject
+    ContentHashes contentHashes;
+
+    @Inject
+    SiteOutput siteOutput;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Content hash -> metadata (loaded lazily)
+    private Map<String, Info> index;
+    private volatile boolean dirty;
+
+    /**
+     * Metadata of an attachment.
+     *
+     * @param size size in bytes
+     * @param mimeType MIME type, e.g. application/pdf
+     * @param pages number of pages of a PDF, null if unknown or not a PDF
+     * @param preview file name of the preview image in the previews directory, null if none
+     */
+    public record Info(long size, String mimeType, Integer pages, String preview) {}
+
+    /**
+     * What templates get: the metadata with display values.
+     *
+     * @param format short format name, e.g. "PDF"
+     * @param sizeLabel human readable size, e.g. "1,7 Mo"
+     * @param large whether the file is above {@code tc11.attachments.large-size-kb}
+     * @param previewUrl site path of the preview image, null if none or outside site generation
+     */
+    public record AttachmentInfo(long size, String mimeType, String format, String sizeLabel, boolean large,
+                                 Integer pages, String previewUrl) {}
+
+    /**
+     * Returns the metadata of an attachment, reading it on first use.
+     *
+     * @param source source file (see {@link SiteFiles#resolve(String, String)})
+     * @return the metadata, or null if the file cannot be read
+     */
+    public AttachmentInfo info(Path source) {
+        if (source == null || !Files.isRegularFile(source)) {
+            return null;
+        }
+        try {
+            String hash = contentHashes.hash(source);
+            Info info = index().get(hash);
+            if (info == null) {
+                info = read(source, hash);
+                index().put(hash, info);
+                dirty = true;
+            }
+            String previewUrl = null;
+            if (info.preview() != null && siteOutput.isGenerating() && Files.isRegularFile(previewsDir.resolve(info.preview()))) {
+                previewUrl = siteOutput.publish(SITE_PATH + info.preview(), previewsDir.resolve(info.preview()));
+            }
+            return new AttachmentInfo(info.size(), info.mimeType(), format(source, info.mimeType()),
+                    sizeLabel(info.size()), info.size() > largeSizeKb * 1024, info.pages(), previewUrl);
+        } catch (IOException | RuntimeException e) {
+            // A malformed file must not break the rendering of its page
+            LOG.debugf("Failed to read attachment metadata of %s: %s", source, e.getMessage());
+            return null;
+        }
+    }
+
+    void onShutdown(@Observes ShutdownEvent event) {
+        if (dirty) {
+            write();
+        }
+    }
+
+    private Info read(Path source, String hash) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer content = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (!isPdf(content)) {
+                return new Info(size, mimeType(source), null, null);
+            }
+            Integer pages = pdfPageCount(content);
+            String preview = null;
+            try {
+                preview = pdfPreview(content, hash);
+            } catch (RuntimeException e) {
+                LOG.debugf("No preview for malformed PDF %s: %s", source.getFileName(), e.getMessage());
+            }
+            LOG.debugf("Read %s: %d bytes, %s pages", source.getFileName(), size, pages);
+            return new Info(size, "application/pdf", pages, preview);
+        }
+    }
+
+    static boolean isPdf(ByteBuffer content) {
+        return content.limit() >= 5 && ascii(content, 0, 5).equals("%PDF-");
+    }
+
+    /**
+     * Reads the page count of a PDF: trailer -> catalog (/Root) -> page tree root (/Pages) -> /Count,
+     * following the cross-reference table. Returns null if it cannot be found, or if the file is malformed.
+     */
+    static Integer pdfPageCount(ByteBuffer content) {
+        try {
+            Integer count = pdfPageCountFromXref(content);
+            return count != null ? count : pdfPageCountFromScan(content);
+        } catch (RuntimeException e) {
+            // Offsets and numbers come from the file: anything may be out of range
+            LOG.debugf("Malformed PDF structure: %s", e.toString());
+            try {
+                return pdfPageCountFromScan(content);
+            } catch (RuntimeException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private static Integer pdfPageCountFromXref(ByteBuffer content) {
+        int length = content.limit();
+        String tail = ascii(content, Math.max(0, length - WINDOW), length);
+        // the last startxref of the file points to the newest cross-reference section
+        String startxref = null;
+        for (Matcher m = STARTXREF.matcher(tail); m.find(); ) {
+            startxref = m.group(1);
+        }
+        if (startxref != null) {
+            Map<Integer, Integer> offsets = new HashMap<>();
+            Integer root = null;
+            long section = Long.parseLong(startxref);
+            // /Prev points to the previous section (incremental updates)
+            for (int guard = 0; section > 0 && section < length && guard < 32; guard++) {
+                String trailer = readXrefSection(content, (int) section, offsets);
+                if (trailer == null) {
+                    break;
+                }
+                Matcher m = ROOT.matcher(trailer);
+                if (root == null && m.find()) {
+                    root = Integer.valueOf(m.group(1));
+                }
+                m = PREV.matcher(trailer);
+                section = m.find() ? Long.parseLong(m.group(1)) : -1;
+            }
+            String catalog = root == null ? null : object(content, offsets.get(root));
+            Matcher pages = catalog == null ? null : PAGES.matcher(catalog);
+            if (pages != null && pages.find()) {
+                String tree = object(content, offsets.get(Integer.valueOf(pages.group(1))));
+                Matcher count = tree == null ? null : COUNT.matcher(tree);
+                if (count != null && count.find()) {
+                    return Integer.valueOf(count.group(1));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compressed cross-reference: looks for the page tree objects at both ends of the file,
+     * the root of the page tree has the largest count.
+     */
+    private static Integer pdfPageCountFromScan(ByteBuffer content) {
+        Integer max = null;
+        for (int[] window : scanWindows(content)) {
+            Matcher dict = PAGES_DICT.matcher(ascii(content, window[0], window[1]));
+            while (dict.find()) {
+                Matcher count = COUNT.matcher(dict.group());
+                if (count.find()) {
+                    int n = Integer.parseInt(count.group(1));
+                    max = max == null ? n : Math.max(max, n);
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the ranges [from, to) scanned at the start and at the end of the file (one range for a small file).
+     */
+    private static int[][] scanWindows(ByteBuffer content) {
+        int length = content.limit();
+        if (length <= 2 * SCAN_WINDOW) {
+            return new int[][] {{0, length}};
+        }
+        return new int[][] {{0, SCAN_WINDOW}, {length - SCAN_WINDOW, length}};
+    }
+
+    /**
+     * Reads a classic cross-reference section ("xref" then subsections of 20-byte entries) into offsets
+     * (without replacing newer entries), and returns the trailer dictionary that follows, or null if the
+     * section is not a classic table.
+     */
+    private static String readXrefSection(ByteBuffer content, int offset, Map<Integer, Integer> offsets) {
+        int length = content.limit();
+        String head = ascii(content, offset, Math.min(length, offset + 4));
+        if (!head.equals("xref")) {
+            return null;
+        }
+        int position = offset + 4;
+        while (position < length) {
+            String line = nextLine(content, position);
+            position += line.length();
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (trimmed.startsWith("trailer")) {
+                return ascii(content, position - line.length(), Math.min(length, position - line.length() + WINDOW));
+            }
+            String[] subsection = trimmed.split("\\s+");
+            if (subsection.length != 2) {
+                return null;
+            }
+            int first = Integer.parseInt(subsection[0]);
+            int count = Integer.parseInt(subsection[1]);
+            for (int i = 0; i < count && position + 20 <= length; i++) {
+                String entry = ascii(content, position, position + 20);
+                position += 20;
+                if (entry.charAt(17) == 'n') {
+                    offsets.putIfAbsent(first + i, Integer.valueOf(entry.substring(0, 10)));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the first JPEG image in the first {@value #SCAN_WINDOW} bytes of a PDF, scaled and
+     * written to the previews directory, or null.
+     */
+    String pdfPreview(ByteBuffer content, String hash) {
+        int length = content.limit();
+        byte[] marker = "/DCTDecode".getBytes(StandardCharsets.ISO_8859_1);
+        // Only the first window: an image near the end of the file is likely on the last page
+        int filter = indexOf(content, marker, 0, Math.min(length, SCAN_WINDOW));
+        if (filter < 0) {
+            return null;
+        }
+        int stream = indexOf(content, "stream".getBytes(StandardCharsets.ISO_8859_1), filter, Math.min(length, filter + WINDOW));
+        if (stream < 0) {
+            return null;
+        }
+        int start = stream + "stream".length();
+        if (start < length && content.get(start) == '\r') start++;
+        if (start < length && content.get(start) == '\n') start++;
+        // A direct /Length gives the end of the data, otherwise look for endstream
+        String dictionary = ascii(content, Math.max(0, filter - WINDOW), stream);
+        Matcher lengthEntry = LENGTH.matcher(dictionary.substring(Math.max(0, dictionary.lastIndexOf("obj"))));
+        int end = lengthEntry.find()
+                ? start + Integer.parseInt(lengthEntry.group(1))
+                : indexOf(content, "endstream".getBytes(StandardCharsets.ISO_8859_1), start, Math.min(length, start + MAX_PREVIEW_BYTES));
+        if (end < start || end > length || end - start > MAX_PREVIEW_BYTES) {
+            return null;
+        }
+        byte[] jpeg = new byte[end - start];
+        content.get(start, jpeg);
+        try {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(jpeg));
+            if (image == null) {
+                return null;
+            }
+            if (image.getWidth() > previewWidth) {
+                image = ImageSupport.scale(image, previewWidth);
+            }
+            String name = hash.substring(0, 16) + ".jpg";
+            Files.createDirectories(previewsDir);
+            Path tmp = Files.createTempFile(previewsDir, "preview", ".tmp");
+            ImageSupport.writeJpeg(image, 0.8f, tmp);
+            Files.move(tmp, previewsDir.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return name;
+        } catch (IOException e) {
+            // CMYK JPEGs and the like are not supported by ImageIO
+            LOG.debugf("No preview: %s", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String object(ByteBuffer content, Integer offset) {
+        if (offset == null || offset < 0 || offset >= content.limit()) {
+            return null;
+        }
+        String object = ascii(content, offset, Math.min(content.limit(), offset + WINDOW));
+        int end = object.indexOf("endobj");
+        return end >= 0 ? object.substring(0, end) : object;
+    }
+
+    private static String nextLine(ByteBuffer content, int position) {
+        int end = position;
+        while (end < content.limit() && content.get(end) != '\n' && content.get(end) != '\r') end++;
+        while (end < content.limit() && (content.get(end) == '\n' || content.get(end) == '\r')) end++;
+        return ascii(content, position, end);
+    }
+
+    private static int indexOf(ByteBuffer content, byte[] pattern, int from, int to) {
+        outer:
+        for (int i = from; i <= to - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (content.get(i + j) != pattern[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static String ascii(ByteBuffer content, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        content.get(from, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static String mimeType(Path source) {
+        String name = source.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String type = dot < 0 ? null : MIME_TYPES.get(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+        if (type == null) {
+            try {
+                type = Files.probeContentType(source);
+            } catch (IOException ignored) {
+                // unknown
+            }
+        }
+        return type != null ? type : "application/octet-stream";
+    }
+
+    private static String format(Path source, String mimeType) {
+        if ("application/pdf".equals(mimeType)) {
+            return "PDF";
+        }
+        String name = source.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Formats a size the French way: "850 o", "172 Ko", "1,7 Mo".
+     */
+    static String sizeLabel(long size) {
+        if (size < 1024) {
+            return size + " o";
+        }
+        if (size < 1024 * 1024) {
+            return Math.round(size / 1024.0) + " Ko";
+        }
+        return String.format(Locale.FRANCE, "%.1f Mo", size / (1024.0 * 1024.0));
+    }
+
+    private synchronized Map<String, Info> index() {
+        if (index == null) {
+            index = new ConcurrentHashMap<>();
+            if (Files.isRegularFile(file)) {
+                try {
+                    index.putAll(objectMapper.readValue(file.toFile(), new TypeReference<Map<String, Info>>() {}));
+                } catch (IOException e) {
+                    LOG.debugf("Ignoring unreadable attachment metadata %s: %s", file, e.getMessage());
+                }
+            }
+        }
+        return index;
+    }
+
+    private synchronized void write() {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, "attachment-metadata", ".tmp");
+            objectMapper.writeValue(tmp.toFile(), index);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            LOG.warnf("Failed to write attachment metadata %s: %s", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package fr.tc11;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content hashes of the source files, shared by the build stages so that a file
+ * is read once per run whatever the number of stages using it (until it is
+ * modified, in dev mode).
+ *
+ * Derived artefacts (responsive images, image and attachment metadata, ...) are
+ * indexed by these hashes and kept between builds, so only what changed since
+ * the previous build is recomputed. Only content is compared: a fresh checkout
+ * (new modification times) with the same content reuses everything.
+ */
+@ApplicationScoped
+public class ContentHashes {
+
+    // Source path -> hash, for this run
+    private final Map<String, FileHash> hashes = new ConcurrentHashMap<>();
+
+    /**
+     * Content hash of a file as of its last read in this run.
+     *
+     * @param size file size when it was hashed
+     * @param lastModified modification time (ms) when it was hashed
+     * @param hash SHA-256 of the content, hex
+     */
+    record FileHash(long size, long lastModified, String hash) {}
+
+    /**
+     * Returns the SHA-256 of a file (hex), reading it only once per run unless it was modified meanwhile.
+     */
+    public String hash(Path source) throws IOException {
+        String key = source.toAbsolutePath().normalize().toString();
+        long size = Files.size(source);
+        long lastModified = Files.getLastModifiedTime(source).toMillis();
+        FileHash known = hashes.get(key);
+        if (known != null && known.size() == size && known.lastModified() == lastModified) {
+            return known.hash();
+        }
+        String hash = SiteOutput.sha256(source);
+        hashes.put(key, new FileHash(size, lastModified, hash));
+        return hash;
+    }
+}
@@ -1,31 +1,66 @@
 package fr.tc11; // adapte le package
 
 
+import io.quarkus.arc.Unremovable;
 import io.quarkus.qute.TemplateExtension;
-import java.lang.reflect.InvocationTargetException;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.spi.CDI;
+import jakarta.inject.Singleton;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @TemplateExtension(namespace = "files") // utilisation: {files:images(page)}
 public class FilesViewHelpers {
 
-    private static final Pattern ATTACH_RX = Pattern.compile(
-        ".*\\.(pdf|docx|xlsx|pptx|zip|rar|txt|csv|odt|ods|odp)$",
-        Pattern.CASE_INSENSITIVE
-    );
-    private static final Pattern IMAGE_RX = Pattern.compile(
-        ".*\\.(jpg|jpeg|png|gif|bmp|webp|svg)$",
-        Pattern.CASE_INSENSITIVE
-    );
+    /** Nature d'un fichier, déterminée par son extension */
+    enum Kind { IMAGE, ATTACHMENT, OTHER }
+
+    /**
+     * Table extension (minuscules, sans le point) -> nature, construite depuis
+     * tc11.files.*-extensions au premier appel (plus de regex sur tout le nom).
+     */
+    private static volatile Map<String, Kind> extensionTable;
+
+    /** Signature commune des accesseurs: (Object) -> Object */
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /** Marqueur "méthode absente", mis en cache comme les autres pour ne pas relancer la recherche */
+    static final MethodHandle ABSENT = MethodHandles.empty(ACCESSOR_TYPE);
+
+    /**
+     * Accesseurs par classe (page ou asset) et par nom de méthode, résolus une seule fois.
+     * ClassValue ne retient pas la classe: rien ne fuit au rechargement en mode dev.
+     */
+    private static final ClassValue<Map<String, MethodHandle>> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected Map<String, MethodHandle> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final Map<Class<?>, Object> BEANS = new ConcurrentHashMap<>();
+
+    /** Fichiers classés par page (voir classified) */
+    private static final Map<PageKey, PageFiles> CLASSIFIED = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Object> STALE_KEYS = new ReferenceQueue<>();
 
     /* ====== API Qute (safe) ====== */
 
     public static List<String> images(Object page) {
-        var urls = safeFileUrls(page);
-        // filtre sur le "nom" (basename) pour détecter l’extension
-        return urls.stream().filter(u -> isImage(basename(u))).toList();
+        return classified(page).images();
     }
 
     public static String firstImage(Object page) {
@@ -42,8 +77,7 @@ public class FilesViewHelpers {
     }
 
     public static List<String> attachments(Object page) {
-        var urls = safeFileUrls(page);
-        return urls.stream().filter(u -> isAttachment(basename(u))).toList();
+        return classified(page).attachments();
     }
 
     public static boolean hasAttachments(Object page) {
@@ -54,6 +88,67 @@ public class FilesViewHelpers {
         return attachments(page).size();
     }
 
+    /** Image de couverture: "cover" du front matter, sinon première image, sinon fallback */
+    public static String cover(Object page, String fallback) {
+        Object data = page == null ? null : invoke(page, "data");
+        Object cover = data != null && invoke(data, "getMap") instanceof Map<?, ?> map ? map.get("cover") : null;
+        if (cover instanceof String str && !str.isBlank()) return str;
+        var first = firstImage(page);
+        return first != null ? first : fallback;
+    }
+
+    /**
+     * srcset des variantes redimensionnées de l'image (voir ResponsiveImages),
+     * "" hors génération du site ou si l'image n'est pas un fichier du site.
+     * utilisation: <img src="{img}" srcset="{files:srcset(page, img)}" sizes="...">
+     */
+    public static String srcset(Object page, String img) {
+        var processed = processed(page, img);
+        return processed == null ? "" : processed.srcset();
+    }
+
+    /** Mini-aperçu flou de l'image (data URI), à afficher en fond pendant le chargement; "" si indisponible */
+    public static String placeholder(Object page, String img) {
+        var processed = processed(page, img);
+        return processed == null ? "" : processed.placeholder();
+    }
+
+    /**
+     * Dimensions intrinsèques de l'image (voir ImageMetadata), null si inconnues.
+     * utilisation: <img src="{img}" width="{files:width(img)}" height="{files:height(img)}">
+     */
+    public static Integer width(String img) {
+        var info = metadata(img);
+        return info == null ? null : info.width();
+    }
+
+    public static Integer height(String img) {
+        var info = metadata(img);
+        return info == null ? null : info.height();
+    }
+
+    /** Ratio pour la propriété CSS aspect-ratio ("1024 / 1536"); "" si inconnu */
+    public static String aspect(String img) {
+        var info = metadata(img);
+        return info == null ? "" : info.aspect();
+    }
+
+    /** Couleur dominante (#rrggbb), en fond pendant le chargement; "" si inconnue */
+    public static String color(String img) {
+        var info = metadata(img);
+        return info == null || info.color() == null ? "" : info.color();
+    }
+
+    /**
+     * Taille, type, nombre de pages (PDF) et aperçu d'une pièce jointe (voir AttachmentMetadata); null si illisible.
+     * utilisation: {#let info=files:attachmentInfo(file)}{info.format} · {info.sizeLabel}{/let}
+     */
+    public static AttachmentMetadata.AttachmentInfo attachmentInfo(String file) {
+        if (file == null || file.isBlank()) return null;
+        var source = bean(SiteFiles.class).resolve(file, null);
+        return source == null ? null : bean(AttachmentMetadata.class).info(source);
+    }
+
     /** Afficher un nom "propre" (pour alt/titre) */
     @TemplateExtension
     public static String displayName(String path) {
@@ -66,12 +161,151 @@ public class FilesViewHelpers {
 
     /* ====== Helpers ====== */
 
+    private static ResponsiveImages.Processed processed(Object page, String img) {
+        if (img == null || img.isBlank()) return null;
+        var source = bean(SiteFiles.class).resolve(img, pageUrl(page));
+        return source == null ? null : bean(ResponsiveImages.class).variants(source);
+    }
+
+    private static ImageMetadata.Info metadata(String img) {
+        if (img == null || img.isBlank()) return null;
+        var source = bean(SiteFiles.class).resolve(img, null);
+        return source == null ? null : bean(ImageMetadata.class).info(source);
+    }
+
+    /** URL de la page (Roq: page.url.relative), pour résoudre les noms de fichiers relatifs */
+    private static String pageUrl(Object page) {
+        Object url = page == null ? null : invoke(page, "url");
+        if (url == null || url instanceof String) return (String) url;
+        String relative = callString(url, "relative");
+        return relative != null ? relative : callString(url, "path");
+    }
+
+    /** Beans des étapes de build, résolus une fois */
+    @SuppressWarnings("unchecked")
+    private static <T> T bean(Class<T> type) {
+        return (T) BEANS.computeIfAbsent(type, t -> CDI.current().select(t).get());
+    }
+
+    /** Fichiers d'une page, classés une seule fois (listes immuables, dans l'ordre d'origine) */
+    record PageFiles(List<String> images, List<String> attachments, List<String> others) {
+        static final PageFiles EMPTY = new PageFiles(List.of(), List.of(), List.of());
+    }
+
+    /**
+     * Classement mémoïsé par page: post.html appelle firstImage, hasAttachments, attachments,
+     * hasImages, images... sur la même page, qui n'est donc lue et classée qu'une fois.
+     */
+    private static PageFiles classified(Object page) {
+        if (page == null) return PageFiles.EMPTY;
+        expungeStaleKeys();
+        return CLASSIFIED.computeIfAbsent(new PageKey(page, STALE_KEYS), k -> classify(page));
+    }
+
+    private static PageFiles classify(Object page) {
+        var images = new ArrayList<String>();
+        var attachments = new ArrayList<String>();
+        var others = new ArrayList<String>();
+        for (String u : safeFileUrls(page)) {
+            // classement sur le "nom" (basename) pour détecter l’extension
+            String name = basename(u);
+            if (isImage(name)) images.add(u);
+            else if (isAttachment(name)) attachments.add(u);
+            else others.add(u);
+        }
+        return new PageFiles(List.copyOf(images), List.copyOf(attachments), List.copyOf(others));
+    }
+
+    private static void expungeStaleKeys() {
+        for (var ref = STALE_KEYS.poll(); ref != null; ref = STALE_KEYS.poll()) {
+            CLASSIFIED.remove(ref);
+        }
+    }
+
+    /**
+     * Clé faible par identité: la page n'est pas retenue par le cache, et ses
+     * equals/hashCode (potentiellement coûteux) ne sont jamais appelés.
+     */
+    private static final class PageKey extends WeakReference<Object> {
+        private final int hash;
+
+        PageKey(Object page, ReferenceQueue<Object> queue) {
+            super(page, queue);
+            this.hash = System.identityHashCode(page);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if (!(o instanceof PageKey other)) return false;
+            Object page = get();
+            return page != null && page == other.get();
+        }
+    }
+
+    /** Vide les caches à chaque démarrage (y compris les rechargements en mode dev) */
+    @Singleton
+    @Unremovable
+    public static class CacheReset {
+        void onStart(@Observes StartupEvent event) {
+            CLASSIFIED.clear();
+            BEANS.clear();
+            extensionTable = null;
+        }
+    }
+
+    /** Extensions reconnues, configurables dans application.properties */
+    @Singleton
+    @Unremovable
+    public static class FilesConfig {
+        @ConfigProperty(name = "tc11.files.image-extensions", defaultValue = "jpg,jpeg,png,gif,bmp,webp,svg")
+        List<String> imageExtensions;
+
+        @ConfigProperty(name = "tc11.files.attachment-extensions", defaultValue = "pdf,docx,xlsx,pptx,zip,rar,txt,csv,odt,ods,odp")
+        List<String> attachmentExtensions;
+    }
+
     private static boolean isAttachment(String name) {
-        return ATTACH_RX.matcher(name).matches();
+        return kindOf(name) == Kind.ATTACHMENT;
     }
 
     private static boolean isImage(String name) {
-        return IMAGE_RX.matcher(name).matches();
+        return kindOf(name) == Kind.IMAGE;
+    }
+
+    /** Nature d'après l'extension (après le dernier point), sans tenir compte de la casse */
+    private static Kind kindOf(String name) {
+        int dot = name.lastIndexOf('.');
+        if (dot < 0 || dot == name.length() - 1) return Kind.OTHER;
+        return extensionTable().getOrDefault(name.substring(dot + 1).toLowerCase(Locale.ROOT), Kind.OTHER);
+    }
+
+    private static Map<String, Kind> extensionTable() {
+        var table = extensionTable;
+        if (table == null) {
+            configure(CDI.current().select(FilesConfig.class).get());
+            table = extensionTable;
+        }
+        return table;
+    }
+
+    /** Construit la table des extensions (appelé directement par les tests, hors CDI) */
+    static void configure(FilesConfig config) {
+        var kinds = new HashMap<String, Kind>();
+        // une extension présente dans les deux listes reste une image
+        config.attachmentExtensions.forEach(ext -> kinds.put(normalizeExtension(ext), Kind.ATTACHMENT));
+        config.imageExtensions.forEach(ext -> kinds.put(normalizeExtension(ext), Kind.IMAGE));
+        extensionTable = Map.copyOf(kinds);
+    }
+
+    private static String normalizeExtension(String ext) {
+        ext = ext.trim().toLowerCase(Locale.ROOT);
+        return ext.startsWith(".") ? ext.substring(1) : ext;
     }
 
     private static String basename(String s) {
@@ -122,27 +356,38 @@ public class FilesViewHelpers {
     /** Invoke une méthode sans param retournant une List<?>; renvoie null si absente/exception */
     @SuppressWarnings("unchecked")
     private static <T> List<T> invokeList(Object target, String methodName, Class<T> elemType) {
-        try {
-            Method m = target.getClass().getMethod(methodName);
-            Object val = m.invoke(target);
-            if (val instanceof List<?> list) {
-                // Pas de cast strict sur elemType pour rester permissif
-                return (List<T>) list;
-            }
-        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException ignored) {
-            // inclut les RoqStaticFileException etc. -> on renvoie null
-        }
-        return null;
+        // Pas de cast strict sur elemType pour rester permissif
+        return (invoke(target, methodName) instanceof List<?> list) ? (List<T>) list : null;
     }
 
     /** Appelle une méthode String sans param; null si indisponible */
     private static String callString(Object target, String methodName) {
+        return (invoke(target, methodName) instanceof String str) ? str : null;
+    }
+
+    /** Appelle une méthode sans param via l'accesseur en cache; null si absente/exception */
+    private static Object invoke(Object target, String methodName) {
+        MethodHandle accessor = accessor(target.getClass(), methodName);
+        if (accessor == ABSENT) return null;
         try {
-            Method m = target.getClass().getMethod(methodName);
-            Object val = m.invoke(target);
-            return (val instanceof String) ? (String) val : null;
-        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            return (Object) accessor.invokeExact(target);
+        } catch (Throwable ignored) {
+            // inclut les RoqStaticFileException etc. -> on renvoie null
             return null;
         }
     }
+
+    static MethodHandle accessor(Class<?> type, String methodName) {
+        return ACCESSORS.get(type).computeIfAbsent(methodName, name -> {
+            try {
+                Method m = type.getMethod(name);
+                MethodHandle mh = MethodHandles.publicLookup().unreflect(m);
+                // méthode statique: on ignore la cible, comme Method.invoke
+                if (Modifier.isStatic(m.getModifiers())) mh = MethodHandles.dropArguments(mh, 0, Object.class);
+                return mh.asType(ACCESSOR_TYPE);
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                return ABSENT;
+            }
+        });
+    }
 }
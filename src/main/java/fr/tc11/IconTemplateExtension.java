@@ -0,0 +1,76 @@
+package fr.tc11;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.qute.RawString;
+import io.quarkus.qute.TemplateExtension;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Qute template extension to inline icons as SVG at build time, instead of
+ * resolving them in the browser with the Iconify script.
+ *
+ * Usage in templates: {icon:svg('mdi:facebook')}
+ *
+ * Icons come from the Iconify sets pinned in package.json (@iconify-json/mdi):
+ * the build extracts the icons used by the templates and the content into
+ * icons/<prefix>.json on the classpath (src/main/icons/extract-icons.js), with
+ * the version of the set they come from. Using a new icon in a template is
+ * enough. Each icon is rendered once, then reused.
+ */
+@TemplateExtension(namespace = "icon")
+public class IconTemplateExtension {
+
+    private static final Logger LOG = Logger.getLogger(IconTemplateExtension.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    // Icon id (mdi:facebook) -> SVG markup
+    private static final Map<String, RawString> SVGS = new ConcurrentHashMap<>();
+
+    // Prefix (mdi) -> icon set
+    private static final Map<String, JsonNode> SETS = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the SVG markup of an icon, sized like the text around it (1em).
+     *
+     * @param id icon id, prefix and name, e.g. mdi:facebook
+     * @return SVG element, empty if the icon is not in the vendored sets
+     */
+    public static RawString svg(String id) {
+        return SVGS.computeIfAbsent(id, IconTemplateExtension::render);
+    }
+
+    private static RawString render(String id) {
+        int colon = id.indexOf(':');
+        JsonNode set = colon > 0 ? SETS.computeIfAbsent(id.substring(0, colon), IconTemplateExtension::load) : null;
+        JsonNode icon = set == null ? null : set.path("icons").get(id.substring(colon + 1));
+        if (icon == null) {
+            LOG.warnf("Icon %s not found, run ./mvnw generate-resources to extract it", id);
+            return new RawString("");
+        }
+        int width = icon.path("width").asInt(set.path("width").asInt(24));
+        int height = icon.path("height").asInt(set.path("height").asInt(24));
+        return new RawString("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"1em\" height=\"1em\" viewBox=\"0 0 "
+                + width + " " + height + "\" aria-hidden=\"true\" class=\"icon\" style=\"vertical-align:-0.125em\">"
+                + icon.path("body").asText() + "</svg>");
+    }
+
+    private static JsonNode load(String prefix) {
+        try (InputStream is = IconTemplateExtension.class.getResourceAsStream("/icons/" + prefix + ".json")) {
+            if (is == null) {
+                LOG.warnf("Icon set %s not found, run ./mvnw generate-resources to extract it", prefix);
+                return OBJECT_MAPPER.createObjectNode();
+            }
+            return OBJECT_MAPPER.readTree(is);
+        } catch (IOException e) {
+            LOG.warnf("Failed to read icon set %s: %s", prefix, e.getMessage());
+            return OBJECT_MAPPER.createObjectNode();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package fr.tc11;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.ShutdownEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the dimensions, format and dominant colour of the site images, so that
+ * templates can give every image explicit width/height (no layout shift) and a
+ * background colour while it loads.
+ *
+ * Dimensions and format come from the image header: the pixels are not decoded.
+ * The dominant colour is the average of a heavily subsampled decode (about
+ * {@value #COLOR_SAMPLES} pixels wide).
+ *
+ * Entries are keyed by source path and validated by content hash (see
+ * {@link ContentHashes}), and kept in {@code tc11.images.metadata-file} between
+ * builds: an image is only read again when its content changes.
+ */
+@ApplicationScoped
+public class ImageMetadata {
+
+    private static final Logger LOG = Logger.getLogger(ImageMetadata.class);
+
+    private static final int COLOR_SAMPLES = 32;
+
+    @ConfigProperty(name = "tc11.images.metadata-file", defaultValue = "target/image-metadata.json")
+    Path file;
+
+    @Inject
+    ContentHashes contentHashes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Source path -> metadata (loaded lazily)
+    private Map<String, Entry> index;
+    private volatile boolean dirty;
+
+    /**
+     * Metadata of an image.
+     *
+     * @param width width in pixels
+     * @param height height in pixels
+     * @param format format name as reported by ImageIO (jpeg, png, ...)
+     * @param color dominant colour as a CSS hex colour (#rrggbb), or null if unknown
+     */
+    public record Info(int width, int height, String format, String color) {
+
+        /**
+         * Returns the ratio as a CSS aspect-ratio value, e.g. "1024 / 1536".
+         */
+        public String aspect() {
+            return width + " / " + height;
+        }
+    }
+
+    /**
+     * Indexed metadata of a file.
+     *
+     * @param hash content hash of the file when it was read
+     */
+    record Entry(String hash, Info info) {}
+
+    /**
+     * Returns the metadata of an image, reading its header on first use.
+     *
+     * @param source source file (see {@link SiteFiles#resolve(String, String)})
+     * @return the metadata, or null if the file is not a readable image
+     */
+    public Info info(Path source) {
+        if (source == null || !Files.isRegularFile(source)) {
+            return null;
+        }
+        String key = source.toAbsolutePath().normalize().toString();
+        try {
+            String hash = contentHashes.hash(source);
+            Map<String, Entry> index = index();
+            Entry entry = index.get(key);
+            if (entry != null && hash.equals(entry.hash())) {
+                return entry.info();
+            }
+            Info info = read(source);
+            index.put(key, new Entry(hash, info));
+            dirty = true;
+            return info;
+        } catch (IOException e) {
+            LOG.debugf("Failed to read image metadata of %s: %s", source, e.getMessage());
+            return null;
+        }
+    }
+
+    void onShutdown(@Observes ShutdownEvent event) {
+        if (dirty) {
+            write();
+        }
+    }
+
+    static Info read(Path source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                String format = reader.getFormatName().toLowerCase(Locale.ROOT);
+                return new Info(width, height, format, dominantColor(reader, width));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static String dominantColor(ImageReader reader, int width) {
+        try {
+            ImageReadParam param = reader.getDefaultReadParam();
+            int step = Math.max(1, width / COLOR_SAMPLES);
+            param.setSourceSubsampling(step, step, 0, 0);
+            BufferedImage sample = reader.read(0, param);
+            long r = 0, g = 0, b = 0, count = 0;
+            for (int y = 0; y < sample.getHeight(); y++) {
+                for (int x = 0; x < sample.getWidth(); x++) {
+                    int argb = sample.getRGB(x, y);
+                    // transparent pixels do not count
+                    if ((argb >>> 24) < 128) continue;
+                    r += (argb >> 16) & 0xff;
+                    g += (argb >> 8) & 0xff;
+                    b += argb & 0xff;
+                    count++;
+                }
+            }
+            return count == 0 ? null : String.format("#%02x%02x%02x", r / count, g / count, b / count);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private synchronized Map<String, Entry> index() {
+        if (index == null) {
+            index = new ConcurrentHashMap<>();
+            if (Files.isRegularFile(file)) {
+                try {
+                    index.putAll(objectMapper.readValue(file.toFile(), new TypeReference<Map<String, Entry>>() {}));
+                } catch (IOException e) {
+                    LOG.debugf("Ignoring unreadable image metadata %s: %s", file, e.getMessage());
+                }
+            }
+        }
+        return index;
+    }
+
+    private synchronized void write() {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, "image-metadata", ".tmp");
+            objectMapper.writeValue(tmp.toFile(), index);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            LOG.warnf("Failed to write image metadata %s: %s", file, e.getMessage());
+        }
+    }
+}
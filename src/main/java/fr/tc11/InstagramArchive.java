@@ -0,0 +1,112 @@
+package fr.tc11;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local archive of the Instagram posts synchronised from the Graph API, per account.
+ *
+ * Unlike {@link InstagramPostsCache}, which only keeps the latest feed, the archive
+ * grows with every sync (up to {@code tc11.instagram.archive.max-posts} posts) and
+ * remembers the newest media seen: its id and timestamp are the watermark from which
+ * the next sync only asks for newer media.
+ */
+@ApplicationScoped
+public class InstagramArchive {
+
+    private static final Logger LOG = Logger.getLogger(InstagramArchive.class);
+
+    @ConfigProperty(name = "tc11.instagram.archive.file", defaultValue = "target/instagram-archive.json")
+    Path file;
+
+    @ConfigProperty(name = "tc11.instagram.archive.max-posts", defaultValue = "200")
+    int maxPosts;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * The archived posts of one account.
+     *
+     * @param newestId Graph API id of the newest media, the watermark
+     * @param newestTimestamp publication date of the newest media, as an ISO-8601 instant
+     * @param posts archived posts, newest first
+     */
+    public record Account(String newestId, String newestTimestamp, List<InstagramPost> posts) {
+
+        static final Account EMPTY = new Account(null, null, List.of());
+
+        boolean hasWatermark() {
+            return newestId != null && newestTimestamp != null;
+        }
+    }
+
+    /**
+     * Returns the archive of the given account, empty if it was never synchronised.
+     */
+    public synchronized Account read(String username) {
+        return readAll().getOrDefault(username, Account.EMPTY);
+    }
+
+    /**
+     * Merges newly synchronised posts into the archive of the account and moves the watermark.
+     *
+     * @param newestId id of the newest fetched media, or null if nothing new was fetched
+     * @param fresh fetched posts, newest first
+     * @return the updated archive
+     */
+    public synchronized Account merge(String username, String newestId, List<InstagramPost> fresh) {
+        Map<String, Account> accounts = readAll();
+        Account current = accounts.getOrDefault(username, Account.EMPTY);
+        if (fresh.isEmpty()) {
+            return current;
+        }
+
+        List<List<InstagramPost>> feeds = new ArrayList<>();
+        feeds.add(fresh);
+        feeds.add(current.posts());
+        List<InstagramPost> posts = InstagramPostsFetcher.mergeFeeds(feeds, maxPosts);
+        Account updated = new Account(newestId != null ? newestId : current.newestId(),
+                fresh.get(0).timestamp() != null ? fresh.get(0).timestamp() : current.newestTimestamp(),
+                posts);
+        accounts.put(username, updated);
+        write(accounts);
+        LOG.infof("Archived %d new Instagram posts of @%s (%d in archive)", fresh.size(), username, posts.size());
+        return updated;
+    }
+
+    private void write(Map<String, Account> accounts) {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, "instagram-archive", ".tmp");
+            objectMapper.writeValue(tmp.toFile(), accounts);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warnf("Failed to write Instagram archive %s: %s", file, e.getMessage());
+        }
+    }
+
+    private Map<String, Account> readAll() {
+        if (!Files.isRegularFile(file)) {
+            return new HashMap<>();
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), new TypeReference<HashMap<String, Account>>() {});
+        } catch (IOException e) {
+            LOG.debugf("Ignoring unreadable Instagram archive %s: %s", file, e.getMessage());
+            return new HashMap<>();
+        }
+    }
+}
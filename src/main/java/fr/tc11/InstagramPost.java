@@ -0,0 +1,53 @@
+package fr.tc11;
+
+/**
+ * An Instagram post, as fetched from one of the configured accounts.
+ *
+ * Besides the permalink, the post keeps what the RSS Bridge and Graph API responses
+ * already provide, so that pages can render a static grid (thumbnail, caption, link)
+ * without running Instagram's oEmbed script. Headless scraping and the fallback
+ * instagram.json only provide the permalink.
+ *
+ * @param url permalink of the post
+ * @param account username of the account the post was fetched from
+ * @param timestamp publication date as an ISO-8601 instant (e.g. 2025-07-23T14:00:56Z), or null
+ * @param mediaType IMAGE, VIDEO or CAROUSEL_ALBUM, or null if unknown
+ * @param mediaUrl URL of the image or video, or null
+ * @param thumbnailUrl URL of the video cover image, or null
+ * @param caption text of the post, or null
+ */
+public record InstagramPost(String url, String account, String timestamp,
+                            String mediaType, String mediaUrl, String thumbnailUrl, String caption) {
+
+    /**
+     * Creates a post known only by its permalink (and date, if any).
+     */
+    public InstagramPost(String url, String account, String timestamp) {
+        this(url, account, timestamp, null, null, null, null);
+    }
+
+    /**
+     * Returns the image to show in a grid: the video cover for videos, the media itself otherwise.
+     *
+     * @return image URL, or null if the post has no known image
+     */
+    public String previewUrl() {
+        if (thumbnailUrl != null) {
+            return thumbnailUrl;
+        }
+        return "VIDEO".equals(mediaType) ? null : mediaUrl;
+    }
+
+    /**
+     * Returns the beginning of the caption, e.g. for an image alt text.
+     *
+     * @param maxLength maximum number of characters
+     * @return the caption cut at maxLength, or null if the post has no caption
+     */
+    public String excerpt(int maxLength) {
+        if (caption == null || caption.length() <= maxLength) {
+            return caption;
+        }
+        return caption.substring(0, maxLength).strip() + "…";
+    }
+}
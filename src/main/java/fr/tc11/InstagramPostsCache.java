@@ -0,0 +1,118 @@
+package fr.tc11;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-disk cache of the last successfully fetched Instagram posts, per account.
+ *
+ * The cache file lives in the build directory and survives between builds, so that
+ * a recent entry (younger than {@code tc11.instagram.cache.ttl-minutes}) avoids any
+ * network access, and an older one can be revalidated with a conditional GET using
+ * the stored ETag/Last-Modified headers.
+ *
+ * This is independent from the static classpath instagram.json, which remains the
+ * last-resort fallback.
+ */
+@ApplicationScoped
+public class InstagramPostsCache {
+
+    private static final Logger LOG = Logger.getLogger(InstagramPostsCache.class);
+
+    @ConfigProperty(name = "tc11.instagram.cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "tc11.instagram.cache.file", defaultValue = "target/instagram-cache.json")
+    Path file;
+
+    @ConfigProperty(name = "tc11.instagram.cache.ttl-minutes", defaultValue = "360")
+    long ttlMinutes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * A cached fetch result.
+     *
+     * @param posts fetched posts
+     * @param source name of the strategy that produced the posts
+     * @param fetchedAt epoch millis of the last fetch or successful revalidation
+     * @param etag ETag response header, if any
+     * @param lastModified Last-Modified response header, if any
+     */
+    public record Entry(List<InstagramPost> posts, String source, long fetchedAt, String etag, String lastModified) {
+
+        boolean hasValidators() {
+            return etag != null || lastModified != null;
+        }
+    }
+
+    /**
+     * Returns the cached entry for the given account, or null if there is none.
+     */
+    public synchronized Entry read(String username) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = readAll().get(username);
+        return entry != null && entry.posts() != null && !entry.posts().isEmpty() ? entry : null;
+    }
+
+    /**
+     * Stores the entry for the given account, replacing any previous one.
+     */
+    public synchronized void write(String username, Entry entry) {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Entry> entries = readAll();
+        entries.put(username, entry);
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            // Write to a temporary file first so an interrupted build never leaves a truncated cache
+            Path tmp = Files.createTempFile(parent, "instagram-cache", ".tmp");
+            objectMapper.writeValue(tmp.toFile(), entries);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warnf("Failed to write Instagram cache %s: %s", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Checks whether the entry is younger than the configured TTL.
+     */
+    public boolean isFresh(Entry entry) {
+        return age(entry).compareTo(Duration.ofMinutes(ttlMinutes)) < 0;
+    }
+
+    /**
+     * Returns the time elapsed since the entry was fetched or last revalidated.
+     */
+    public Duration age(Entry entry) {
+        return Duration.ofMillis(Math.max(0, System.currentTimeMillis() - entry.fetchedAt()));
+    }
+
+    private Map<String, Entry> readAll() {
+        if (!Files.isRegularFile(file)) {
+            return new HashMap<>();
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), new TypeReference<HashMap<String, Entry>>() {});
+        } catch (IOException e) {
+            LOG.debugf("Ignoring unreadable Instagram cache %s: %s", file, e.getMessage());
+            return new HashMap<>();
+        }
+    }
+}
@@ -1,20 +1,24 @@
 package fr.tc11;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.microsoft.playwright.Browser;
 import com.microsoft.playwright.BrowserContext;
-import com.microsoft.playwright.BrowserType;
 import com.microsoft.playwright.Page;
-import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.Request;
+import com.microsoft.playwright.options.LoadState;
 import com.microsoft.playwright.options.WaitUntilState;
 import io.quarkus.runtime.Startup;
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -24,12 +28,32 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -39,12 +63,37 @@ import java.util.regex.Pattern;
  * Posts are kept in memory and exposed via {@link InstagramTemplateExtension}
  * to Qute templates, allowing instagram.json to be generated dynamically.
  * 
- * Uses the following fallback chain:
+ * Several accounts can be configured ({@code tc11.instagram.usernames}): they are
+ * fetched concurrently, with at most {@code tc11.instagram.max-concurrent-per-host}
+ * requests in flight per host, and merged into a single feed ordered by date and
+ * limited to {@code tc11.instagram.feed-size} posts.
+ * 
+ * Each account uses the following fallback chain:
  * 1. RSS Bridge (no authentication required, simple HTTP request)
- * 2. Instagram Graph API (if credentials configured)
+ * 2. Instagram Graph API (if credentials configured, first account only)
  * 3. Headless browser scraping via Playwright (if no API credentials)
  * 4. Existing instagram.json file from classpath (if all else fails)
  * 
+ * With {@code tc11.instagram.fetch.concurrent=true}, strategies 1-3 are started
+ * together and the first non-empty result in that priority order wins, within
+ * an overall deadline of {@code tc11.instagram.fetch.deadline-seconds}.
+ * 
+ * Results are kept in an on-disk cache ({@link InstagramPostsCache}): a fresh entry
+ * skips the network entirely and a stale one is revalidated with a conditional GET.
+ * 
+ * With Graph API credentials, the club account media are synchronised incrementally
+ * into a local archive ({@link InstagramArchive}), exposed as {instagram:archive}.
+ * 
+ * Outcomes and latencies of each strategy are remembered across builds
+ * ({@link InstagramStrategyHealth}): a strategy that keeps failing is skipped for a
+ * cool-down period, and healthy, faster strategies are tried first.
+ * 
+ * When the site is generated, post thumbnails are served from the site itself
+ * ({@link InstagramThumbnails}) rather than from Instagram's CDN.
+ * 
+ * With {@code tc11.instagram.fetch.async=true}, startup only kicks off the fetch
+ * and {@link #getInstagramPosts()} waits for it when instagram.json is rendered.
+ * 
  * @see <a href="https://rss-bridge.org/">RSS Bridge</a>
  * @see <a href="https://developers.facebook.com/docs/instagram-api/">Instagram Graph API Documentation</a>
  */
@@ -68,20 +117,74 @@ public class InstagramPostsFetcher {
     private static final Pattern POST_LINK_PATTERN = Pattern.compile("/p/([A-Za-z0-9_-]+)");
     private static final Pattern REEL_LINK_PATTERN = Pattern.compile("/reel/([A-Za-z0-9_-]+)");
     
-    private static final int MAX_POSTS = 6;
+    // Lean scraping: DOM selector for post links, and resources that are never downloaded
+    private static final String POST_ANCHOR_SELECTOR = "a[href*='/p/'], a[href*='/reel/']";
+    private static final Set<String> BLOCKED_RESOURCE_TYPES = Set.of(
+            "image", "media", "font", "stylesheet", "texttrack", "manifest");
+    private static final List<String> FIRST_PARTY_SCRIPT_HOSTS = List.of(
+            "instagram.com", "cdninstagram.com", "fbcdn.net");
+    
     private static final int CONNECT_TIMEOUT_SECONDS = 10;
     private static final int REQUEST_TIMEOUT_SECONDS = 30;
     private static final int BROWSER_TIMEOUT_MS = 30000;
     private static final int BROWSER_CONTENT_LOAD_WAIT_MS = 2000;
     
+    // Accepts both +00:00 (RSS Bridge) and +0000 (Graph API) offsets
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss[.SSS][XXX][XX]");
+    
+    // Strategy names, also recorded as the source of cached posts
+    static final String SOURCE_RSS_BRIDGE = "RSS Bridge";
+    static final String SOURCE_GRAPH_API = "Graph API";
+    static final String SOURCE_HEADLESS_BROWSER = "headless browser";
+
     // Classpath resource path for fallback instagram.json
     private static final String FALLBACK_RESOURCE_PATH = "/instagram.json";
 
     @ConfigProperty(name = "tc11.instagram.enabled", defaultValue = "true")
     boolean enabled;
     
-    @ConfigProperty(name = "tc11.instagram.username", defaultValue = "tc11assb")
-    String instagramUsername;
+    // Accounts to aggregate; the first one is the club account (the one the Graph API credentials belong to)
+    @ConfigProperty(name = "tc11.instagram.usernames", defaultValue = "tc11assb")
+    List<String> usernames;
+
+    // Number of posts fetched per account and kept in the merged feed
+    @ConfigProperty(name = "tc11.instagram.feed-size", defaultValue = "6")
+    int feedSize;
+
+    // RSS Bridge endpoint, %s being the username (e.g. a self-hosted instance)
+    @ConfigProperty(name = "tc11.instagram.rss-bridge-url", defaultValue = RSS_BRIDGE_URL)
+    String rssBridgeUrl;
+
+    // Maximum number of concurrent requests sent to the same host
+    @ConfigProperty(name = "tc11.instagram.max-concurrent-per-host", defaultValue = "2")
+    int maxConcurrentPerHost;
+
+    // Race all eligible strategies instead of trying them one after another
+    @ConfigProperty(name = "tc11.instagram.fetch.concurrent", defaultValue = "true")
+    boolean concurrentFetch;
+
+    // Headless scraping without images/fonts/videos/third-party scripts, waiting on the DOM
+    @ConfigProperty(name = "tc11.instagram.headless.lean", defaultValue = "true")
+    boolean leanScraping;
+
+    // Overall deadline for the concurrent fetch, after which fallback posts are used
+    @ConfigProperty(name = "tc11.instagram.fetch.deadline-seconds", defaultValue = "45")
+    int fetchDeadlineSeconds;
+
+    // Fetch in the background instead of blocking application startup
+    @ConfigProperty(name = "tc11.instagram.fetch.async", defaultValue = "true")
+    boolean asyncFetch;
+
+    // Maximum time getInstagramPosts() waits for the background fetch
+    @ConfigProperty(name = "tc11.instagram.fetch.await-seconds", defaultValue = "60")
+    int awaitSeconds;
+    
+    // Graph API sync: media per request, and maximum number of pages followed in one sync
+    @ConfigProperty(name = "tc11.instagram.graph.page-size", defaultValue = "25")
+    int graphPageSize;
+
+    @ConfigProperty(name = "tc11.instagram.graph.max-pages", defaultValue = "4")
+    int graphMaxPages;
     
     // Access token from environment variable (recommended) or application.properties
     @ConfigProperty(name = "tc11.instagram.access-token")
@@ -91,11 +194,58 @@ public class InstagramPostsFetcher {
     @ConfigProperty(name = "tc11.instagram.account-id")
     Optional<String> accountId;
 
+    @Inject
+    InstagramPostsCache postsCache;
+
+    @Inject
+    PlaywrightBrowserPool browserPool;
+
+    @Inject
+    InstagramThumbnails thumbnails;
+
+    @Inject
+    InstagramStrategyHealth health;
+
+    @Inject
+    InstagramArchive archive;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
+    // Shared by all accounts and strategies
     private final HttpClient httpClient;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
     
-    // In-memory storage for fetched posts (initialized once in @PostConstruct)
-    private List<String> instagramPosts = Collections.emptyList();
+    // In-memory storage for fetched posts (completed once, either in @PostConstruct or in the background)
+    private final CompletableFuture<Feed> instagramFeed = new CompletableFuture<>();
+
+    /**
+     * The merged feed, and the posts of each account.
+     */
+    record Feed(List<InstagramPost> posts, Map<String, List<InstagramPost>> byAccount) {}
+
+    /**
+     * A named fetch strategy, listed in priority order.
+     */
+    record FetchStrategy(String name, Callable<FetchResult> fetch) {}
+
+    /**
+     * Posts returned by a strategy, with the HTTP validators needed to revalidate them later.
+     */
+    record FetchResult(String source, List<InstagramPost> posts, String etag, String lastModified) {
+
+        static FetchResult of(String source, List<InstagramPost> posts) {
+            return new FetchResult(source, posts, null, null);
+        }
+    }
+
+    /**
+     * Items read from a streamed response, and the cursor of the next page (Graph API only), or null.
+     */
+    record ItemsPage<T>(List<T> items, String after) {}
+
+    /**
+     * A Graph API media; its id is the watermark of the incremental sync.
+     */
+    record GraphMedia(String id, InstagramPost post) {}
 
     public InstagramPostsFetcher() {
         this.httpClient = HttpClient.newBuilder()
@@ -106,203 +256,707 @@ public class InstagramPostsFetcher {
 
     @PostConstruct
     void init() {
+        if (!asyncFetch) {
+            instagramFeed.complete(fetchFeed());
+            return;
+        }
+
+        // Fetch in the background so that Roq can start rendering right away;
+        // getInstagramPosts() only waits when instagram.json is actually rendered
+        LOG.info("Fetching Instagram posts in the background");
+        Thread.ofVirtual().name("instagram-fetch").start(() -> {
+            try {
+                instagramFeed.complete(fetchFeed());
+            } catch (RuntimeException e) {
+                LOG.warnf("Instagram background fetch failed: %s", e.getMessage());
+                instagramFeed.complete(fallbackFeed());
+            }
+        });
+    }
+
+    /**
+     * Fetches every account concurrently and merges the results into one feed.
+     */
+    private Feed fetchFeed() {
         if (!enabled) {
             LOG.info("Instagram posts fetcher is disabled");
             // Load fallback posts even when disabled so the REST endpoint always returns data
-            instagramPosts = readFallbackPosts();
-            return;
+            return fallbackFeed();
+        }
+
+        Map<String, List<InstagramPost>> byAccount = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Map<String, Future<List<InstagramPost>>> futures = new LinkedHashMap<>();
+            for (String username : usernames) {
+                futures.put(username, executor.submit(() -> fetchAccountPosts(username)));
+            }
+            for (Map.Entry<String, Future<List<InstagramPost>>> entry : futures.entrySet()) {
+                try {
+                    byAccount.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    LOG.warnf("Fetching @%s failed: %s", entry.getKey(), e.getCause().getMessage());
+                    byAccount.put(entry.getKey(), List.of());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<InstagramPost> merged = mergeFeeds(byAccount.values(), feedSize);
+        if (!merged.isEmpty()) {
+            // Thumbnails already downloaded for the merged feed are reused for the account feeds
+            merged = thumbnails.localise(merged);
+            byAccount.replaceAll((username, posts) -> thumbnails.localise(posts));
+            return new Feed(merged, byAccount);
+        }
+        return fallbackFeed();
+    }
+
+    /**
+     * Returns the posts of one account: from the on-disk cache while it is fresh, otherwise
+     * from a conditional revalidation or the fetch chain, falling back to the stale
+     * cache entry when every strategy failed.
+     * 
+     * @return the account posts, empty if none could be fetched
+     */
+    List<InstagramPost> fetchAccountPosts(String username) {
+        InstagramPostsCache.Entry cached = postsCache.read(username);
+        if (cached != null && postsCache.isFresh(cached)) {
+            LOG.infof("Using %d cached Instagram posts of @%s from %s (fetched %d min ago)",
+                    cached.posts().size(), username, cached.source(), postsCache.age(cached).toMinutes());
+            return List.copyOf(cached.posts());
+        }
+
+        FetchResult result = cached != null ? revalidate(username, cached) : null;
+        if (result == null) {
+            List<FetchStrategy> strategies = eligibleStrategies(username);
+            result = concurrentFetch
+                    ? fetchConcurrently(username, strategies)
+                    : fetchSequentially(username, strategies);
+        }
+
+        if (result != null) {
+            postsCache.write(username, new InstagramPostsCache.Entry(
+                    result.posts(), result.source(), System.currentTimeMillis(), result.etag(), result.lastModified()));
+            return List.copyOf(result.posts());
+        }
+
+        // A stale cache entry is still more recent than the classpath fallback
+        if (cached != null) {
+            LOG.infof("Using %d stale cached Instagram posts of @%s from %s", cached.posts().size(), username, cached.source());
+            return List.copyOf(cached.posts());
         }
+        return List.of();
+    }
 
+    /**
+     * Builds the feed from the classpath instagram.json, used when every account failed.
+     */
+    private Feed fallbackFeed() {
         List<String> fallbackPosts = readFallbackPosts();
-        List<String> fetchedUrls = null;
-        
-        // Try RSS Bridge first (no authentication required)
-        LOG.info("Fetching Instagram posts via RSS Bridge...");
+        if (fallbackPosts.isEmpty()) {
+            LOG.warn("No Instagram posts available - instagram.json will be empty");
+            return new Feed(List.of(), Map.of());
+        }
+        LOG.infof("Using %d fallback posts from instagram.json", fallbackPosts.size());
+        String account = primaryAccount();
+        List<InstagramPost> posts = fallbackPosts.stream()
+                .map(url -> new InstagramPost(url, account, null))
+                .toList();
+        return new Feed(posts, Map.of(account, posts));
+    }
+
+    /**
+     * Merges the posts of several accounts: duplicates (same shortcode) are removed,
+     * posts are ordered from newest to oldest and the result is limited to {@code size}.
+     * Posts without a date keep their relative order, after the dated ones.
+     */
+    static List<InstagramPost> mergeFeeds(Collection<List<InstagramPost>> feeds, int size) {
+        Map<String, InstagramPost> unique = new LinkedHashMap<>();
+        for (List<InstagramPost> feed : feeds) {
+            for (InstagramPost post : feed) {
+                unique.putIfAbsent(shortcodeOf(post.url()), post);
+            }
+        }
+        return unique.values().stream()
+                .sorted(Comparator.comparing(InstagramPost::timestamp,
+                        Comparator.nullsLast(Comparator.reverseOrder())))
+                .limit(size)
+                .toList();
+    }
+
+    /**
+     * Returns the post shortcode of an Instagram URL (/p/ or /reel/), or the URL itself.
+     */
+    static String shortcodeOf(String url) {
+        Matcher matcher = POST_LINK_PATTERN.matcher(url);
+        if (matcher.find()) {
+            return matcher.group(1);
+        }
+        matcher = REEL_LINK_PATTERN.matcher(url);
+        return matcher.find() ? matcher.group(1) : url;
+    }
+
+    private String primaryAccount() {
+        return usernames.get(0);
+    }
+
+    /**
+     * Revalidates a stale cache entry with a conditional GET against the source that produced it.
+     * A 304 response only refreshes the entry timestamp.
+     * 
+     * @return the up-to-date result, or null if the entry cannot be revalidated
+     */
+    private FetchResult revalidate(String username, InstagramPostsCache.Entry cached) {
+        if (!cached.hasValidators() || !health.allows(cached.source())) {
+            return null;
+        }
         try {
-            fetchedUrls = fetchInstagramPostsViaRssBridge();
-            if (!fetchedUrls.isEmpty()) {
-                instagramPosts = Collections.unmodifiableList(new ArrayList<>(fetchedUrls));
-                LOG.infof("Successfully fetched %d Instagram posts via RSS Bridge", fetchedUrls.size());
-                return;
+            FetchResult result = switch (cached.source()) {
+                case SOURCE_RSS_BRIDGE -> fetchInstagramPostsViaRssBridge(username, cached);
+                case SOURCE_GRAPH_API -> hasGraphApiCredentials(username) ? fetchInstagramPostsViaGraphApi(username, cached) : null;
+                default -> null;
+            };
+            if (result != null && !result.posts().isEmpty()) {
+                LOG.infof("Revalidated %d cached Instagram posts of @%s via %s", result.posts().size(), username, result.source());
+                return result;
             }
         } catch (Exception e) {
-            LOG.warnf("RSS Bridge failed: %s. Trying other methods...", e.getMessage());
+            LOG.warnf("Revalidation of @%s via %s failed: %s", username, cached.source(), e.getMessage());
         }
-        
-        // Try Graph API if credentials are configured
-        if (hasGraphApiCredentials()) {
-            LOG.info("Fetching Instagram posts via Graph API");
+        return null;
+    }
+
+    /**
+     * Returns the fetch strategies that can run with the current configuration and whose
+     * circuit is not open: healthy and cheapest first, then in priority order.
+     */
+    private List<FetchStrategy> eligibleStrategies(String username) {
+        List<FetchStrategy> strategies = new ArrayList<>();
+        // RSS Bridge first (no authentication required)
+        strategies.add(new FetchStrategy(SOURCE_RSS_BRIDGE, () -> fetchInstagramPostsViaRssBridge(username, null)));
+        if (hasGraphApiCredentials(username)) {
+            strategies.add(new FetchStrategy(SOURCE_GRAPH_API, () -> fetchInstagramPostsViaGraphApi(username, null)));
+        } else {
+            LOG.infof("Graph API credentials not configured for @%s. Skipping Graph API.", username);
+        }
+        strategies.add(new FetchStrategy(SOURCE_HEADLESS_BROWSER, () -> FetchResult.of(SOURCE_HEADLESS_BROWSER,
+                fetchInstagramPostsViaHeadlessBrowser(username).stream()
+                        .map(url -> new InstagramPost(url, username, null))
+                        .toList())));
+        return health.order(strategies.stream().map(this::measured).toList(), FetchStrategy::name);
+    }
+
+    /**
+     * Wraps a strategy so that its outcome and latency are recorded in {@link InstagramStrategyHealth}.
+     * An empty result counts as a failure; a cancelled strategy (interrupted) is not recorded.
+     */
+    private FetchStrategy measured(FetchStrategy strategy) {
+        return new FetchStrategy(strategy.name(), () -> {
+            long start = System.nanoTime();
             try {
-                fetchedUrls = fetchInstagramPostsViaGraphApi();
-                if (!fetchedUrls.isEmpty()) {
-                    instagramPosts = Collections.unmodifiableList(new ArrayList<>(fetchedUrls));
-                    LOG.infof("Successfully fetched %d Instagram posts via Graph API", fetchedUrls.size());
-                    return;
+                FetchResult result = strategy.fetch().call();
+                if (result.posts().isEmpty()) {
+                    health.recordFailure(strategy.name(), Duration.ofNanos(System.nanoTime() - start));
+                } else {
+                    health.recordSuccess(strategy.name(), Duration.ofNanos(System.nanoTime() - start));
                 }
+                return result;
+            } catch (InterruptedException e) {
+                throw e;
             } catch (Exception e) {
-                LOG.warnf("Graph API failed: %s. Trying headless browser...", e.getMessage());
+                if (!Thread.currentThread().isInterrupted()) {
+                    health.recordFailure(strategy.name(), Duration.ofNanos(System.nanoTime() - start));
+                }
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Tries each strategy one after another and returns the first non-empty result.
+     * 
+     * @return the winning result, or null if every strategy failed
+     */
+    FetchResult fetchSequentially(String username, List<FetchStrategy> strategies) {
+        for (FetchStrategy strategy : strategies) {
+            LOG.infof("Fetching Instagram posts of @%s via %s...", username, strategy.name());
+            try {
+                FetchResult result = strategy.fetch().call();
+                if (!result.posts().isEmpty()) {
+                    LOG.infof("Successfully fetched %d Instagram posts of @%s via %s", result.posts().size(), username, strategy.name());
+                    return result;
+                }
+            } catch (Exception e) {
+                LOG.warnf("%s failed for @%s: %s. Trying other methods...", strategy.name(), username, e.getMessage());
             }
-        } else {
-            LOG.info("Graph API credentials not configured. Trying headless browser scraping...");
         }
-        
-        // Fallback to headless browser scraping
+        return null;
+    }
+
+    /**
+     * Starts every strategy at once on virtual threads and keeps the first non-empty
+     * result in priority order: a lower-priority strategy only wins once every
+     * strategy ahead of it has failed or returned nothing.
+     * Remaining strategies are cancelled (and their browser context closed) as soon
+     * as a winner is known or the overall deadline has passed.
+     * 
+     * @return the winning result, or null if every strategy failed or the deadline passed
+     */
+    FetchResult fetchConcurrently(String username, List<FetchStrategy> strategies) {
+        LOG.infof("Racing %d Instagram fetch strategies for @%s (deadline: %ds)", strategies.size(), username, fetchDeadlineSeconds);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(fetchDeadlineSeconds);
+
+        // Not try-with-resources: close() would wait for the cancelled losers to finish
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<FetchResult>> futures = new ArrayList<>();
         try {
-            fetchedUrls = fetchInstagramPostsViaHeadlessBrowser();
-            if (!fetchedUrls.isEmpty()) {
-                instagramPosts = Collections.unmodifiableList(new ArrayList<>(fetchedUrls));
-                LOG.infof("Successfully fetched %d Instagram posts via headless browser", fetchedUrls.size());
-                return;
+            for (FetchStrategy strategy : strategies) {
+                futures.add(executor.submit(strategy.fetch()));
             }
-        } catch (Exception e) {
-            LOG.warnf("Headless browser scraping failed: %s", e.getMessage());
-        }
-        
-        // Final fallback to existing instagram.json from classpath
-        if (!fallbackPosts.isEmpty()) {
-            instagramPosts = Collections.unmodifiableList(new ArrayList<>(fallbackPosts));
-            LOG.infof("Using %d fallback posts from instagram.json", fallbackPosts.size());
-        } else {
-            LOG.warn("No Instagram posts available - instagram.json will be empty");
-            instagramPosts = Collections.emptyList();
+            for (int i = 0; i < strategies.size(); i++) {
+                String name = strategies.get(i).name();
+                try {
+                    FetchResult result = futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (!result.posts().isEmpty()) {
+                        LOG.infof("Successfully fetched %d Instagram posts of @%s via %s", result.posts().size(), username, name);
+                        return result;
+                    }
+                } catch (ExecutionException e) {
+                    LOG.warnf("%s failed for @%s: %s", name, username, e.getCause().getMessage());
+                }
+            }
+        } catch (TimeoutException e) {
+            LOG.warnf("Instagram fetch deadline of %ds exceeded for @%s", fetchDeadlineSeconds, username);
+            // Strategies still running at the deadline are as costly as failed ones
+            for (int i = 0; i < strategies.size(); i++) {
+                if (!futures.get(i).isDone()) {
+                    health.recordFailure(strategies.get(i).name(), Duration.ofSeconds(fetchDeadlineSeconds));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+            // A cancelled scrape would otherwise keep the browser busy until its navigation timeout
+            browserPool.abortLease(username);
+            executor.shutdownNow();
         }
+        return null;
     }
-    
+
     /**
-     * Returns the list of Instagram post URLs.
+     * Returns the list of Instagram post URLs of the merged feed.
      * This is used by the Qute template extension to expose posts to templates.
      * 
+     * In async mode, this blocks until the background fetch completes, but no longer
+     * than {@code tc11.instagram.fetch.await-seconds}; after that the fallback posts
+     * are returned (and kept for subsequent calls).
+     * 
      * @return unmodifiable list of Instagram post URLs
      */
     public List<String> getInstagramPosts() {
-        return instagramPosts;
+        return urls(getPosts());
+    }
+
+    /**
+     * Returns the list of Instagram post URLs of one account, without refetching.
+     * 
+     * @param username account username
+     * @return unmodifiable list of Instagram post URLs, empty for an unknown account
+     */
+    public List<String> getInstagramPosts(String username) {
+        return urls(getPosts(username));
+    }
+
+    /**
+     * Returns the posts of the merged feed, with their media, caption and date when known.
+     * Blocks like {@link #getInstagramPosts()} in async mode.
+     * 
+     * @return unmodifiable list of posts
+     */
+    public List<InstagramPost> getPosts() {
+        return feed().posts();
+    }
+
+    /**
+     * Returns the posts of one account, without refetching.
+     * 
+     * @param username account username
+     * @return unmodifiable list of posts, empty for an unknown account
+     */
+    public List<InstagramPost> getPosts(String username) {
+        return feed().byAccount().getOrDefault(username, List.of());
+    }
+
+    /**
+     * Serializes the posts of the merged feed as a JSON array, for instagram.json.
+     * 
+     * @return JSON array of posts
+     */
+    public String getPostsJson() {
+        try {
+            return objectMapper.writeValueAsString(getPosts());
+        } catch (IOException e) {
+            LOG.warnf("Failed to serialize Instagram posts: %s", e.getMessage());
+            return "[]";
+        }
     }
 
     /**
-     * Checks if Graph API credentials are configured.
+     * Returns the posts of the club account archived from the Graph API, newest first.
+     * Waits for the current fetch like {@link #getPosts()}, so that this build's sync is included.
+     * Empty when the Graph API is not configured.
+     * 
+     * @return unmodifiable list of archived posts
      */
-    private boolean hasGraphApiCredentials() {
-        return accessToken.isPresent() && !accessToken.get().isBlank() 
+    public List<InstagramPost> getArchivedPosts() {
+        feed();
+        return archive.read(primaryAccount()).posts();
+    }
+
+    private Feed feed() {
+        try {
+            return instagramFeed.get(awaitSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            LOG.warnf("Instagram posts not available after %ds, using fallback posts", awaitSeconds);
+        } catch (ExecutionException e) {
+            // Not expected: the background fetch always completes normally
+            LOG.warnf("Instagram background fetch failed: %s", e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // No-op if the fetch completed in the meantime
+        instagramFeed.complete(fallbackFeed());
+        return instagramFeed.getNow(new Feed(List.of(), Map.of()));
+    }
+
+    private static List<String> urls(List<InstagramPost> posts) {
+        return posts.stream().map(InstagramPost::url).toList();
+    }
+
+    /**
+     * Checks if Graph API credentials are configured for the given account.
+     * They always belong to the first (club) account.
+     */
+    private boolean hasGraphApiCredentials(String username) {
+        return username.equals(primaryAccount())
+                && accessToken.isPresent() && !accessToken.get().isBlank() 
                 && accountId.isPresent() && !accountId.get().isBlank();
     }
 
+    /**
+     * Sends a request with the shared HTTP client, waiting for a free slot if
+     * {@code tc11.instagram.max-concurrent-per-host} requests are already in flight to that host.
+     */
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException, InterruptedException {
+        Semaphore permits = hostPermits.computeIfAbsent(request.uri().getHost(),
+                host -> new Semaphore(Math.max(1, maxConcurrentPerHost)));
+        permits.acquire();
+        try {
+            return httpClient.send(request, bodyHandler);
+        } finally {
+            permits.release();
+        }
+    }
+
     /**
      * Fetches Instagram posts using RSS Bridge.
      * This is the simplest method - no authentication required, just a simple HTTP request.
      * Uses rss-bridge.org to get Instagram feed as JSON.
+     * 
+     * @param cached cache entry to revalidate with a conditional GET, or null for a plain fetch
      */
-    List<String> fetchInstagramPostsViaRssBridge() throws IOException, InterruptedException {
-        String rssBridgeUrl = String.format(RSS_BRIDGE_URL, URLEncoder.encode(instagramUsername, StandardCharsets.UTF_8));
+    FetchResult fetchInstagramPostsViaRssBridge(String username, InstagramPostsCache.Entry cached) throws IOException, InterruptedException {
+        String url = String.format(rssBridgeUrl, URLEncoder.encode(username, StandardCharsets.UTF_8));
         
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(rssBridgeUrl))
+        HttpRequest request = conditional(HttpRequest.newBuilder(), cached)
+                .uri(URI.create(url))
                 .header("Accept", "application/json")
                 .header("User-Agent", "Mozilla/5.0 (compatible; TC11SiteBot/1.0)")
                 .timeout(Duration.ofSeconds(REQUEST_TIMEOUT_SECONDS))
                 .GET()
                 .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<InputStream> response = send(request, HttpResponse.BodyHandlers.ofInputStream());
         
-        if (response.statusCode() != 200) {
-            throw new IOException("RSS Bridge returned status " + response.statusCode());
+        // Closing the body before its end (enough posts read) releases the connection
+        try (InputStream body = response.body()) {
+            if (cached != null && response.statusCode() == 304) {
+                return notModified(cached, response);
+            }
+            if (response.statusCode() != 200) {
+                throw new IOException("RSS Bridge returned status " + response.statusCode());
+            }
+
+            return withValidators(SOURCE_RSS_BRIDGE, parseRssBridgeResponse(body, username), response);
         }
+    }
+
+    /**
+     * Parses the RSS Bridge JSON response and extracts posts.
+     * The response follows the JSON Feed format with items containing 'url' or 'id' fields,
+     * 'date_published' or 'date_modified' dates, the caption in 'content_text' or 'title',
+     * and the media as 'image' and/or 'attachments' (direct links).
+     * Stops reading once {@code feedSize} posts have been found.
+     */
+    List<InstagramPost> parseRssBridgeResponse(InputStream body, String username) {
+        return parseItems(body, "items", SOURCE_RSS_BRIDGE, feedSize, item -> {
+            // Try 'url' field first, then 'id'
+            String url = item.path("url").asText();
+            if (url == null || url.isEmpty()) {
+                url = item.path("id").asText();
+            }
+            if (url == null || url.isEmpty() || !url.contains("instagram.com/p/")) {
+                return null;
+            }
+
+            String date = item.path("date_published").asText(item.path("date_modified").asText(null));
+            String caption = textOrNull(item.path("content_text"));
+            if (caption == null) {
+                caption = textOrNull(item.path("title"));
+            }
 
-        return parseRssBridgeResponse(response.body());
+            // The first attachment is the post media; 'image' is a still picture (video cover)
+            JsonNode attachment = item.path("attachments").path(0);
+            String mediaUrl = textOrNull(attachment.path("url"));
+            String mimeType = attachment.path("mime_type").asText("");
+            String mediaType = mediaUrl == null ? null : mimeType.startsWith("video/") ? "VIDEO" : "IMAGE";
+            String thumbnailUrl = textOrNull(item.path("image"));
+            if (mediaUrl == null && thumbnailUrl != null) {
+                mediaType = "IMAGE";
+                mediaUrl = thumbnailUrl;
+                thumbnailUrl = null;
+            }
+
+            return new InstagramPost(url, username, normalizeTimestamp(date),
+                    mediaType, mediaUrl, thumbnailUrl, caption);
+        }).items();
     }
 
     /**
-     * Parses the RSS Bridge JSON response and extracts post URLs.
-     * The response follows the JSON Feed format with items containing 'url' or 'id' fields.
+     * Streams the objects of a top-level array (RSS Bridge 'items', Graph API 'data') and maps
+     * them one item at a time. Other fields are skipped without being built, and parsing
+     * stops as soon as {@code limit} items have been collected, so the cost depends on the
+     * number of posts we keep rather than on the size of the response.
+     * The Graph API 'paging' object, which follows 'data', is read for the next page cursor.
+     *
+     * @param mapper maps an item, or returns null to skip it
      */
-    List<String> parseRssBridgeResponse(String jsonResponse) {
-        List<String> postUrls = new ArrayList<>();
-        
-        try {
-            JsonNode root = objectMapper.readTree(jsonResponse);
-            JsonNode items = root.path("items");
-            
-            if (items.isArray()) {
-                for (JsonNode item : items) {
-                    if (postUrls.size() >= MAX_POSTS) break;
-                    
-                    // Try 'url' field first, then 'id'
-                    String url = item.path("url").asText();
-                    if (url == null || url.isEmpty()) {
-                        url = item.path("id").asText();
+    private <T> ItemsPage<T> parseItems(InputStream body, String arrayField, String source, int limit,
+                                   Function<JsonNode, T> mapper) {
+        List<T> items = new ArrayList<>();
+        String after = null;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new ItemsPage<>(items, null);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.START_ARRAY && arrayField.equals(field)) {
+                    for (JsonToken token = parser.nextToken(); token != null && token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                        if (token != JsonToken.START_OBJECT) {
+                            parser.skipChildren();
+                            continue;
+                        }
+                        T item = mapper.apply(objectMapper.readTree(parser));
+                        if (item != null) {
+                            items.add(item);
+                            if (items.size() >= limit) {
+                                return new ItemsPage<>(items, null);
+                            }
+                        }
                     }
-                    
-                    if (url != null && !url.isEmpty() && url.contains("instagram.com/p/")) {
-                        postUrls.add(url);
+                } else if (value == JsonToken.START_OBJECT && "paging".equals(field)) {
+                    JsonNode paging = objectMapper.readTree(parser);
+                    // 'next' is only present when there is another page
+                    if (paging.has("next")) {
+                        after = textOrNull(paging.path("cursors").path("after"));
                     }
+                } else {
+                    parser.skipChildren();
                 }
             }
-        } catch (Exception e) {
-            LOG.warnf("Failed to parse RSS Bridge response: %s", e.getMessage());
+        } catch (IOException e) {
+            LOG.warnf("Failed to parse %s response: %s", source, e.getMessage());
+        }
+        return new ItemsPage<>(items, after);
+    }
+
+    /**
+     * Returns the text of a JSON node, or null if missing, null or blank.
+     */
+    private static String textOrNull(JsonNode node) {
+        String text = node.isValueNode() ? node.asText() : null;
+        return text == null || text.isBlank() ? null : text;
+    }
+
+    /**
+     * Normalizes a date from RSS Bridge (2025-07-23T14:00:56+00:00) or the Graph API
+     * (2024-01-15T10:30:00+0000) to an ISO-8601 instant, or null if it cannot be parsed.
+     */
+    static String normalizeTimestamp(String date) {
+        if (date == null || date.isBlank()) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(date, TIMESTAMP_FORMAT).toInstant().truncatedTo(ChronoUnit.SECONDS).toString();
+        } catch (DateTimeParseException e) {
+            return null;
         }
-        
-        return postUrls;
     }
 
     /**
      * Fetches Instagram posts using the Graph API.
      * Requires a valid access token and Instagram Business Account ID.
+     * 
+     * The media are synchronised into the local {@link InstagramArchive}. The first sync
+     * follows the paging cursors for up to {@code tc11.instagram.graph.max-pages} pages;
+     * later syncs only ask for media published since the newest archived one (the
+     * watermark) and stop as soon as they reach it, which usually takes a single request.
+     * The feed is then read from the archive.
+     * 
+     * @param cached cache entry to revalidate with a conditional GET, or null for a plain fetch
      */
-    List<String> fetchInstagramPostsViaGraphApi() throws IOException, InterruptedException {
+    FetchResult fetchInstagramPostsViaGraphApi(String username, InstagramPostsCache.Entry cached) throws IOException, InterruptedException {
         String token = accessToken.orElseThrow(() -> new IllegalStateException("Access token not configured"));
         String igAccountId = accountId.orElseThrow(() -> new IllegalStateException("Account ID not configured"));
-        
-        // Build the API URL to fetch recent media
-        String apiUrl = String.format("%s/%s/media?fields=%s&limit=%d&access_token=%s",
+
+        InstagramArchive.Account archived = archive.read(username);
+        boolean incremental = archived.hasWatermark();
+        // 'since' is inclusive: the newest archived media comes back and ends the sync
+        String since = incremental ? String.valueOf(Instant.parse(archived.newestTimestamp()).getEpochSecond()) : null;
+
+        List<GraphMedia> fresh = new ArrayList<>();
+        HttpResponse<InputStream> firstResponse = null;
+        String after = null;
+        boolean reachedWatermark = false;
+        // At least one request: its response carries the validators of the result
+        int maxPages = Math.max(1, graphMaxPages);
+        for (int pages = 0; pages < maxPages && !reachedWatermark; pages++) {
+            HttpRequest request = (firstResponse == null ? conditional(HttpRequest.newBuilder(), cached) : HttpRequest.newBuilder())
+                    .uri(URI.create(graphMediaUrl(igAccountId, token, since, after)))
+                    .header("Accept", "application/json")
+                    .timeout(Duration.ofSeconds(REQUEST_TIMEOUT_SECONDS))
+                    .GET()
+                    .build();
+
+            HttpResponse<InputStream> response = send(request, HttpResponse.BodyHandlers.ofInputStream());
+            ItemsPage<GraphMedia> page;
+            try (InputStream body = response.body()) {
+                if (firstResponse == null && cached != null && response.statusCode() == 304) {
+                    return notModified(cached, response);
+                }
+                if (response.statusCode() != 200) {
+                    String errorMessage = parseGraphApiError(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                    throw new IOException("Graph API returned status " + response.statusCode() + ": " + errorMessage);
+                }
+                page = parseMediaPage(body, username, Integer.MAX_VALUE);
+            }
+            if (firstResponse == null) {
+                firstResponse = response;
+            }
+
+            for (GraphMedia media : page.items()) {
+                if (incremental && media.id() != null && media.id().equals(archived.newestId())) {
+                    reachedWatermark = true;
+                    break;
+                }
+                fresh.add(media);
+            }
+            after = page.after();
+            if (after == null) {
+                break;
+            }
+        }
+
+        LOG.infof("Graph API sync of @%s: %d new media (%s)", username, fresh.size(),
+                incremental ? "since " + archived.newestTimestamp() : "full sync");
+        InstagramArchive.Account updated = archive.merge(username,
+                fresh.isEmpty() ? null : fresh.get(0).id(),
+                fresh.stream().map(GraphMedia::post).toList());
+        return withValidators(SOURCE_GRAPH_API, updated.posts().stream().limit(feedSize).toList(), firstResponse);
+    }
+
+    private String graphMediaUrl(String igAccountId, String token, String since, String after) {
+        StringBuilder url = new StringBuilder(String.format("%s/%s/media?fields=%s&limit=%d&access_token=%s",
                 GRAPH_API_BASE,
                 URLEncoder.encode(igAccountId, StandardCharsets.UTF_8),
                 URLEncoder.encode(MEDIA_FIELDS, StandardCharsets.UTF_8),
-                MAX_POSTS,
-                URLEncoder.encode(token, StandardCharsets.UTF_8));
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(apiUrl))
-                .header("Accept", "application/json")
-                .timeout(Duration.ofSeconds(REQUEST_TIMEOUT_SECONDS))
-                .GET()
-                .build();
+                graphPageSize,
+                URLEncoder.encode(token, StandardCharsets.UTF_8)));
+        if (since != null) {
+            url.append("&since=").append(since);
+        }
+        if (after != null) {
+            url.append("&after=").append(URLEncoder.encode(after, StandardCharsets.UTF_8));
+        }
+        return url.toString();
+    }
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        
-        if (response.statusCode() != 200) {
-            String errorMessage = parseGraphApiError(response.body());
-            throw new IOException("Graph API returned status " + response.statusCode() + ": " + errorMessage);
+    /**
+     * Adds If-None-Match/If-Modified-Since headers from the cache entry, if any.
+     */
+    private static HttpRequest.Builder conditional(HttpRequest.Builder builder, InstagramPostsCache.Entry cached) {
+        if (cached != null) {
+            if (cached.etag() != null) {
+                builder.header("If-None-Match", cached.etag());
+            }
+            if (cached.lastModified() != null) {
+                builder.header("If-Modified-Since", cached.lastModified());
+            }
         }
+        return builder;
+    }
 
-        return parseMediaResponse(response.body());
+    private static FetchResult withValidators(String source, List<InstagramPost> posts, HttpResponse<?> response) {
+        return new FetchResult(source, posts,
+                response.headers().firstValue("ETag").orElse(null),
+                response.headers().firstValue("Last-Modified").orElse(null));
+    }
+
+    /**
+     * Builds the result of a 304 response: the cached posts, with any refreshed validators.
+     */
+    private static FetchResult notModified(InstagramPostsCache.Entry cached, HttpResponse<?> response) {
+        LOG.debugf("%s returned 304 Not Modified", cached.source());
+        return new FetchResult(cached.source(), cached.posts(),
+                response.headers().firstValue("ETag").orElse(cached.etag()),
+                response.headers().firstValue("Last-Modified").orElse(cached.lastModified()));
     }
 
     /**
      * Fetches Instagram posts using a headless browser (Playwright).
      * This method loads the Instagram profile page and extracts post links
      * after JavaScript has rendered the content.
+     * The browser is kept warm by {@link PlaywrightBrowserPool}; each call gets a fresh context.
      */
-    List<String> fetchInstagramPostsViaHeadlessBrowser() {
-        LOG.infof("Starting headless browser to scrape @%s", instagramUsername);
+    List<String> fetchInstagramPostsViaHeadlessBrowser(String username) {
+        LOG.infof("Scraping @%s with headless browser", username);
         
-        try (Playwright playwright = Playwright.create()) {
-            BrowserType.LaunchOptions launchOptions = new BrowserType.LaunchOptions()
-                    .setHeadless(true)
-                    .setTimeout(BROWSER_TIMEOUT_MS);
+        try {
+            Browser.NewContextOptions contextOptions = new Browser.NewContextOptions()
+                    .setUserAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36");
             
-            try (Browser browser = playwright.chromium().launch(launchOptions)) {
-                BrowserContext context = browser.newContext(new Browser.NewContextOptions()
-                        .setUserAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36"));
-                
+            return browserPool.withContext(username, contextOptions, context -> {
                 Page page = context.newPage();
                 
-                String profileUrl = String.format(INSTAGRAM_PROFILE_URL, instagramUsername);
+                String profileUrl = String.format(INSTAGRAM_PROFILE_URL, username);
                 LOG.debugf("Navigating to %s", profileUrl);
                 
+                if (leanScraping) {
+                    return scrapeLean(username, context, page, profileUrl);
+                }
+                
                 // Navigate to the profile page and wait for network to be idle
+                // (in slices, so that a lease aborted by the race stops early)
                 page.navigate(profileUrl, new Page.NavigateOptions()
                         .setTimeout(BROWSER_TIMEOUT_MS)
-                        .setWaitUntil(WaitUntilState.NETWORKIDLE));
+                        .setWaitUntil(WaitUntilState.COMMIT));
+                browserPool.await(username, BROWSER_TIMEOUT_MS, slice -> page.waitForLoadState(LoadState.NETWORKIDLE,
+                        new Page.WaitForLoadStateOptions().setTimeout(slice)));
                 
                 // Wait a bit more for dynamic content to load
                 page.waitForTimeout(BROWSER_CONTENT_LOAD_WAIT_MS);
@@ -311,13 +965,101 @@ public class InstagramPostsFetcher {
                 String content = page.content();
                 
                 return extractPostUrlsFromHtml(content);
-            }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Headless browser scraping interrupted", e);
+        } catch (CancellationException e) {
+            // Another strategy won the race
+            throw e;
         } catch (Exception e) {
             LOG.warnf("Headless browser error: %s", e.getMessage());
             throw new RuntimeException("Failed to scrape Instagram via headless browser", e);
         }
     }
 
+    /**
+     * Lean variant of the headless scrape: only the documents and Instagram's own
+     * scripts are downloaded, the page is considered ready as soon as enough post
+     * anchors are in the DOM, and the links are read with a DOM query.
+     */
+    private List<String> scrapeLean(String username, BrowserContext context, Page page, String profileUrl) {
+        context.route("**/*", route -> {
+            Request request = route.request();
+            if (isBlockedResource(request.resourceType(), request.url())) {
+                route.abort();
+            } else {
+                route.resume();
+            }
+        });
+        
+        page.navigate(profileUrl, new Page.NavigateOptions()
+                .setTimeout(BROWSER_TIMEOUT_MS)
+                .setWaitUntil(WaitUntilState.COMMIT));
+        
+        // Waits in slices, so that a lease aborted by the race stops early
+        boolean rendered = browserPool.await(username, BROWSER_TIMEOUT_MS, slice -> {
+            page.waitForLoadState(LoadState.DOMCONTENTLOADED, new Page.WaitForLoadStateOptions().setTimeout(slice));
+            page.waitForFunction("([selector, count]) => document.querySelectorAll(selector).length >= count",
+                    List.of(POST_ANCHOR_SELECTOR, feedSize),
+                    new Page.WaitForFunctionOptions().setTimeout(slice));
+        });
+        if (!rendered) {
+            // The profile may have fewer posts: keep whatever has been rendered
+            LOG.debugf("Fewer than %d post links after %dms", feedSize, BROWSER_TIMEOUT_MS);
+        }
+        
+        @SuppressWarnings("unchecked")
+        List<String> hrefs = (List<String>) page.evalOnSelectorAll(POST_ANCHOR_SELECTOR,
+                "anchors => anchors.map(a => a.getAttribute('href'))");
+        return extractPostUrlsFromHrefs(hrefs);
+    }
+
+    /**
+     * Checks whether a request can be skipped while scraping: anything that is not
+     * needed to render the post links (images, videos, fonts, styles, third-party scripts...).
+     */
+    static boolean isBlockedResource(String resourceType, String url) {
+        if (BLOCKED_RESOURCE_TYPES.contains(resourceType)) {
+            return true;
+        }
+        if ("script".equals(resourceType)) {
+            String host = URI.create(url).getHost();
+            return host == null || FIRST_PARTY_SCRIPT_HOSTS.stream()
+                    .noneMatch(h -> host.equals(h) || host.endsWith("." + h));
+        }
+        return false;
+    }
+
+    /**
+     * Extracts Instagram post URLs from a list of link targets (href attributes), in document order.
+     * Uses /p/ URL format for all content types as it works for embedding both posts and reels.
+     */
+    List<String> extractPostUrlsFromHrefs(List<String> hrefs) {
+        Set<String> shortcodes = new LinkedHashSet<>();
+        for (String href : hrefs) {
+            if (href == null) continue;
+            Matcher matcher = POST_LINK_PATTERN.matcher(href);
+            if (!matcher.find()) {
+                matcher = REEL_LINK_PATTERN.matcher(href);
+                if (!matcher.find()) continue;
+            }
+            String shortcode = matcher.group(1);
+            if (shortcode.length() >= 10 && shortcode.length() <= 12) {
+                shortcodes.add(shortcode);
+            }
+        }
+        
+        List<String> postUrls = new ArrayList<>();
+        for (String shortcode : shortcodes) {
+            if (postUrls.size() >= feedSize) break;
+            postUrls.add("https://www.instagram.com/p/" + shortcode);
+        }
+        
+        LOG.debugf("Extracted %d posts from %d links", postUrls.size(), hrefs.size());
+        return postUrls;
+    }
+
     /**
      * Extracts Instagram post URLs from the rendered HTML page.
      * Uses /p/ URL format for all content types as it works for embedding both posts and reels.
@@ -346,7 +1088,7 @@ public class InstagramPostsFetcher {
         // Convert shortcodes to full URLs using /p/ format (works for embedding both posts and reels)
         List<String> postUrls = new ArrayList<>();
         for (String shortcode : shortcodes) {
-            if (postUrls.size() >= MAX_POSTS) break;
+            if (postUrls.size() >= feedSize) break;
             postUrls.add("https://www.instagram.com/p/" + shortcode);
         }
         
@@ -355,28 +1097,31 @@ public class InstagramPostsFetcher {
     }
 
     /**
-     * Parses the Graph API media response and extracts post permalinks.
+     * Parses the Graph API media response and extracts posts with the {@link #MEDIA_FIELDS}.
+     * Stops reading once {@code feedSize} posts have been found.
      */
-    List<String> parseMediaResponse(String jsonResponse) {
-        List<String> postUrls = new ArrayList<>();
-        
-        try {
-            JsonNode root = objectMapper.readTree(jsonResponse);
-            JsonNode data = root.path("data");
-            
-            if (data.isArray()) {
-                for (JsonNode media : data) {
-                    String permalink = media.path("permalink").asText();
-                    if (permalink != null && !permalink.isEmpty()) {
-                        postUrls.add(permalink);
-                    }
-                }
+    List<InstagramPost> parseMediaResponse(InputStream body, String username) {
+        return parseMediaPage(body, username, feedSize).items().stream().map(GraphMedia::post).toList();
+    }
+
+    /**
+     * Parses one page of the Graph API media response, with the cursor of the next page.
+     *
+     * @param limit maximum number of media to read
+     */
+    ItemsPage<GraphMedia> parseMediaPage(InputStream body, String username, int limit) {
+        return parseItems(body, "data", SOURCE_GRAPH_API, limit, media -> {
+            String permalink = media.path("permalink").asText();
+            if (permalink == null || permalink.isEmpty()) {
+                return null;
             }
-        } catch (Exception e) {
-            LOG.warnf("Failed to parse Graph API response: %s", e.getMessage());
-        }
-        
-        return postUrls;
+            return new GraphMedia(textOrNull(media.path("id")), new InstagramPost(permalink, username,
+                    normalizeTimestamp(media.path("timestamp").asText(null)),
+                    textOrNull(media.path("media_type")),
+                    textOrNull(media.path("media_url")),
+                    textOrNull(media.path("thumbnail_url")),
+                    textOrNull(media.path("caption"))));
+        });
     }
 
     /**
@@ -419,7 +1164,7 @@ public class InstagramPostsFetcher {
      * For testing: parse media response.
      */
     List<String> testParseMediaResponse(String jsonResponse) {
-        return parseMediaResponse(jsonResponse);
+        return urls(parseMediaResponse(stream(jsonResponse), primaryAccount()));
     }
     
     /**
@@ -429,10 +1174,42 @@ public class InstagramPostsFetcher {
         return extractPostUrlsFromHtml(html);
     }
     
+    /**
+     * For testing: extract post URLs from link targets.
+     */
+    List<String> testExtractPostUrlsFromHrefs(List<String> hrefs) {
+        return extractPostUrlsFromHrefs(hrefs);
+    }
+    
+    /**
+     * For testing: parse media response into posts.
+     */
+    List<InstagramPost> testParseMediaResponsePosts(String jsonResponse) {
+        return parseMediaResponse(stream(jsonResponse), primaryAccount());
+    }
+    
+    /**
+     * For testing: parse RSS Bridge response into posts.
+     */
+    List<InstagramPost> testParseRssBridgeResponsePosts(String jsonResponse) {
+        return parseRssBridgeResponse(stream(jsonResponse), primaryAccount());
+    }
+    
     /**
      * For testing: parse RSS Bridge response.
      */
     List<String> testParseRssBridgeResponse(String jsonResponse) {
-        return parseRssBridgeResponse(jsonResponse);
+        return urls(parseRssBridgeResponse(stream(jsonResponse), primaryAccount()));
+    }
+    
+    /**
+     * For testing: parse the next page cursor of a media response.
+     */
+    String testParseMediaPageCursor(String jsonResponse) {
+        return parseMediaPage(stream(jsonResponse), primaryAccount(), Integer.MAX_VALUE).after();
+    }
+    
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
     }
 }
@@ -0,0 +1,182 @@
+package fr.tc11;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Remembers how each Instagram fetch strategy behaved in previous builds, so that
+ * a source that keeps failing stops costing a full timeout on every build.
+ *
+ * Each strategy is a circuit breaker: after {@code tc11.instagram.health.failure-threshold}
+ * consecutive failures its circuit opens and the strategy is skipped for
+ * {@code tc11.instagram.health.cool-down-minutes}. Once the cool-down has elapsed
+ * the strategy is tried again; one success closes the circuit, one more failure
+ * re-opens it for another cool-down.
+ *
+ * Strategies are also reordered: healthy ones first, cheapest (lowest average
+ * latency) first, keeping the configured priority order between equals.
+ *
+ * The state is kept in a small JSON file in the build directory.
+ */
+@ApplicationScoped
+public class InstagramStrategyHealth {
+
+    private static final Logger LOG = Logger.getLogger(InstagramStrategyHealth.class);
+
+    // Weight of the latest latency in the moving average
+    private static final double LATENCY_SMOOTHING = 0.3;
+
+    @ConfigProperty(name = "tc11.instagram.health.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "tc11.instagram.health.file", defaultValue = "target/instagram-health.json")
+    Path file;
+
+    @ConfigProperty(name = "tc11.instagram.health.failure-threshold", defaultValue = "3")
+    int failureThreshold;
+
+    @ConfigProperty(name = "tc11.instagram.health.cool-down-minutes", defaultValue = "120")
+    long coolDownMinutes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Strategy name -> state (loaded lazily)
+    private Map<String, State> states;
+
+    /**
+     * Health of one strategy.
+     *
+     * @param consecutiveFailures failures since the last success
+     * @param openUntil epoch millis until which the circuit is open, 0 if closed
+     * @param averageLatencyMs moving average of the fetch duration, 0 if unknown
+     * @param lastSuccessAt epoch millis of the last success, 0 if never
+     */
+    public record State(int consecutiveFailures, long openUntil, long averageLatencyMs, long lastSuccessAt) {
+
+        static final State UNKNOWN = new State(0, 0, 0, 0);
+
+        boolean isHealthy() {
+            return consecutiveFailures == 0;
+        }
+
+        long averageLatencyMs(long latencyMs) {
+            return averageLatencyMs == 0 ? latencyMs
+                    : Math.round(LATENCY_SMOOTHING * latencyMs + (1 - LATENCY_SMOOTHING) * averageLatencyMs);
+        }
+    }
+
+    /**
+     * Checks whether the strategy may be tried, i.e. its circuit is closed or its cool-down has elapsed.
+     */
+    public synchronized boolean allows(String strategy) {
+        if (!enabled) {
+            return true;
+        }
+        State state = state(strategy);
+        return state.openUntil() <= System.currentTimeMillis();
+    }
+
+    /**
+     * Keeps the items whose strategy is allowed, healthy and cheapest first.
+     * The sort is stable: items with the same health and latency keep their order.
+     *
+     * @param items strategies, in priority order
+     * @param name returns the strategy name of an item
+     * @return the allowed items, reordered
+     */
+    public synchronized <T> List<T> order(List<T> items, Function<T, String> name) {
+        if (!enabled) {
+            return items;
+        }
+        List<T> allowed = new ArrayList<>();
+        for (T item : items) {
+            String strategy = name.apply(item);
+            if (allows(strategy)) {
+                allowed.add(item);
+            } else {
+                State state = state(strategy);
+                LOG.infof("Skipping %s: circuit open until %s after %d consecutive failures",
+                        strategy, Instant.ofEpochMilli(state.openUntil()), state.consecutiveFailures());
+            }
+        }
+        // Unknown latency (never measured) sorts as 0 so that new strategies get a chance
+        allowed.sort(Comparator.comparing((T item) -> !state(name.apply(item)).isHealthy())
+                .thenComparingLong(item -> state(name.apply(item)).averageLatencyMs()));
+        return allowed;
+    }
+
+    /**
+     * Records a successful fetch, closing the circuit.
+     */
+    public synchronized void recordSuccess(String strategy, Duration latency) {
+        if (!enabled) {
+            return;
+        }
+        State state = state(strategy);
+        update(strategy, new State(0, 0, state.averageLatencyMs(latency.toMillis()), System.currentTimeMillis()));
+    }
+
+    /**
+     * Records a failed (or empty) fetch, opening the circuit once the threshold is reached.
+     */
+    public synchronized void recordFailure(String strategy, Duration latency) {
+        if (!enabled) {
+            return;
+        }
+        State state = state(strategy);
+        int failures = state.consecutiveFailures() + 1;
+        long openUntil = 0;
+        if (failures >= failureThreshold) {
+            openUntil = System.currentTimeMillis() + Duration.ofMinutes(coolDownMinutes).toMillis();
+            LOG.warnf("%s failed %d times in a row, skipping it for %d min", strategy, failures, coolDownMinutes);
+        }
+        update(strategy, new State(failures, openUntil, state.averageLatencyMs(latency.toMillis()), state.lastSuccessAt()));
+    }
+
+    private State state(String strategy) {
+        return states().getOrDefault(strategy, State.UNKNOWN);
+    }
+
+    private void update(String strategy, State state) {
+        states().put(strategy, state);
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, "instagram-health", ".tmp");
+            objectMapper.writeValue(tmp.toFile(), states);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warnf("Failed to write Instagram strategy health %s: %s", file, e.getMessage());
+        }
+    }
+
+    private Map<String, State> states() {
+        if (states == null) {
+            states = new HashMap<>();
+            if (Files.isRegularFile(file)) {
+                try {
+                    states.putAll(objectMapper.readValue(file.toFile(), new TypeReference<Map<String, State>>() {}));
+                } catch (IOException e) {
+                    LOG.debugf("Ignoring unreadable Instagram strategy health %s: %s", file, e.getMessage());
+                }
+            }
+        }
+        return states;
+    }
+}
@@ -8,27 +8,68 @@ import java.util.List;
 /**
  * Qute template extension to expose Instagram posts to templates.
  * 
- * Usage in templates: {instagram:posts}
+ * Usage in templates: {instagram:posts} (merged feed of all configured accounts)
+ * or {instagram:postsFor('tc11assb')} (one account). Each post exposes
+ * {post.url}, {post.previewUrl}, {post.caption}, {post.timestamp}...
  * 
- * This allows the instagram.json file to be generated at build time
- * with dynamically fetched Instagram post URLs.
+ * The homepage grid is rendered at build time from {instagram:posts}
+ * (partials/instagram-grid.html); instagram.json is still generated
+ * with the same posts ({instagram:json}) for other consumers.
+ * 
+ * When the fetcher runs in async mode, only the templates calling
+ * {@code instagram:*} wait for the fetch; other pages render meanwhile.
  */
 @TemplateExtension(namespace = "instagram")
 public class InstagramTemplateExtension {
 
-    // Cache the fetcher instance since Instagram posts are fetched once at startup
+    // Cache the fetcher instance since Instagram posts are fetched once per application run
     private static volatile InstagramPostsFetcher cachedFetcher;
 
     /**
-     * Returns the list of Instagram post URLs.
+     * Returns the Instagram posts of the merged feed.
+     * May block (bounded) until the background fetch completes.
+     * 
+     * @return list of Instagram posts
+     */
+    public static List<InstagramPost> posts() {
+        return fetcher().getPosts();
+    }
+
+    /**
+     * Returns the Instagram posts of a single configured account.
+     * Posts come from the same fetch as {@link #posts()}; nothing is refetched.
+     * 
+     * @param username account username
+     * @return list of Instagram posts, empty for an account that is not configured
+     */
+    public static List<InstagramPost> postsFor(String username) {
+        return fetcher().getPosts(username);
+    }
+
+    /**
+     * Returns every post of the club account archived from the Graph API, newest first,
+     * for an archive or gallery page. Empty when the Graph API is not configured.
+     * 
+     * @return list of archived Instagram posts
+     */
+    public static List<InstagramPost> archive() {
+        return fetcher().getArchivedPosts();
+    }
+
+    /**
+     * Returns the posts of the merged feed as a JSON array.
      * Used in Qute templates to generate instagram.json content.
      * 
-     * @return list of Instagram post URLs
+     * @return JSON array of posts
      */
-    public static List<String> posts() {
+    public static String json() {
+        return fetcher().getPostsJson();
+    }
+
+    private static InstagramPostsFetcher fetcher() {
         if (cachedFetcher == null) {
             cachedFetcher = CDI.current().select(InstagramPostsFetcher.class).get();
         }
-        return cachedFetcher.getInstagramPosts();
+        return cachedFetcher;
     }
 }
@@ -0,0 +1,233 @@
+package fr.tc11;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Build stage that downloads the thumbnail of each Instagram post and publishes a
+ * resized, recompressed copy in the generated site, so that visitors never hit
+ * Instagram's CDN when the homepage grid loads.
+ *
+ * Downloads run on virtual threads, at most {@code tc11.instagram.thumbnails.parallelism}
+ * at a time, and are streamed to disk. Images wider than {@code tc11.instagram.thumbnails.width}
+ * are scaled down and written as JPEG; the file is named after its content hash
+ * (e.g. /instagram/3f2a9c0d1e7b5a64.jpg) so it can be cached forever.
+ *
+ * Thumbnails are kept in {@code tc11.instagram.thumbnails.dir} between builds with an
+ * index by post shortcode: a post already seen is never downloaded again.
+ *
+ * Only active while the site is generated (see {@link SiteOutput}); otherwise posts
+ * keep their CDN URLs.
+ */
+@ApplicationScoped
+public class InstagramThumbnails {
+
+    private static final Logger LOG = Logger.getLogger(InstagramThumbnails.class);
+
+    private static final String SITE_PATH = "/instagram/";
+    private static final String INDEX_FILE = "index.json";
+    private static final int CONNECT_TIMEOUT_SECONDS = 10;
+    private static final int REQUEST_TIMEOUT_SECONDS = 30;
+
+    @ConfigProperty(name = "tc11.instagram.thumbnails.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "tc11.instagram.thumbnails.dir", defaultValue = "target/instagram-thumbnails")
+    Path dir;
+
+    // Maximum width of the published thumbnails, in pixels
+    @ConfigProperty(name = "tc11.instagram.thumbnails.width", defaultValue = "640")
+    int width;
+
+    // JPEG quality, between 0 and 1
+    @ConfigProperty(name = "tc11.instagram.thumbnails.quality", defaultValue = "0.8")
+    float quality;
+
+    // Maximum number of thumbnails downloaded at the same time
+    @ConfigProperty(name = "tc11.instagram.thumbnails.parallelism", defaultValue = "4")
+    int parallelism;
+
+    @Inject
+    SiteOutput siteOutput;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(CONNECT_TIMEOUT_SECONDS))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    // Post shortcode -> thumbnail file name in the work directory (loaded lazily)
+    private Map<String, String> index;
+
+    /**
+     * Returns the posts with their thumbnail replaced by a local copy published in the site.
+     * Posts without an image, or whose thumbnail could not be downloaded, are returned unchanged.
+     *
+     * @param posts posts to localise
+     * @return posts in the same order
+     */
+    public List<InstagramPost> localise(List<InstagramPost> posts) {
+        if (!enabled || !siteOutput.isGenerating() || posts.isEmpty()) {
+            return posts;
+        }
+
+        Map<String, String> index = index();
+        Semaphore permits = new Semaphore(Math.max(1, parallelism));
+        List<Future<InstagramPost>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (InstagramPost post : posts) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return localise(post, index);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+
+        List<InstagramPost> localised = new ArrayList<>(posts.size());
+        for (int i = 0; i < posts.size(); i++) {
+            try {
+                localised.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                LOG.warnf("Failed to download thumbnail of %s: %s", posts.get(i).url(), e.getCause().getMessage());
+                localised.add(posts.get(i));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                localised.add(posts.get(i));
+            }
+        }
+        writeIndex(index);
+        return List.copyOf(localised);
+    }
+
+    private InstagramPost localise(InstagramPost post, Map<String, String> index) throws IOException, InterruptedException {
+        String previewUrl = post.previewUrl();
+        if (previewUrl == null || previewUrl.startsWith(SITE_PATH)) {
+            return post;
+        }
+
+        String shortcode = InstagramPostsFetcher.shortcodeOf(post.url());
+        String name = index.get(shortcode);
+        if (name == null || !Files.isRegularFile(dir.resolve(name))) {
+            name = download(previewUrl);
+            index.put(shortcode, name);
+        }
+        String sitePath = siteOutput.publish(SITE_PATH + name, dir.resolve(name));
+        return new InstagramPost(post.url(), post.account(), post.timestamp(),
+                post.mediaType(), post.mediaUrl(), sitePath, post.caption());
+    }
+
+    /**
+     * Streams the image to a temporary file, optimises it and stores it under its content hash.
+     *
+     * @return the file name in the work directory
+     */
+    private String download(String imageUrl) throws IOException, InterruptedException {
+        Files.createDirectories(dir);
+        Path downloaded = Files.createTempFile(dir, "download", ".tmp");
+        Path optimised = null;
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(imageUrl))
+                    .header("User-Agent", "Mozilla/5.0 (compatible; TC11SiteBot/1.0)")
+                    .timeout(Duration.ofSeconds(REQUEST_TIMEOUT_SECONDS))
+                    .GET()
+                    .build();
+            HttpResponse<Path> response = httpClient.send(request, HttpResponse.BodyHandlers.ofFile(downloaded));
+            if (response.statusCode() != 200) {
+                throw new IOException("CDN returned status " + response.statusCode());
+            }
+
+            optimised = optimise(downloaded);
+            String extension = optimised != null ? "jpg" : extensionOf(response.headers().firstValue("Content-Type").orElse(""));
+            Path source = optimised != null ? optimised : downloaded;
+            String name = SiteOutput.sha256(source).substring(0, 16) + "." + extension;
+            Files.move(source, dir.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOG.debugf("Downloaded thumbnail %s (%d bytes)", name, Files.size(dir.resolve(name)));
+            return name;
+        } finally {
+            Files.deleteIfExists(downloaded);
+            if (optimised != null) {
+                Files.deleteIfExists(optimised);
+            }
+        }
+    }
+
+    /**
+     * Scales the image down to the configured width and recompresses it as JPEG.
+     *
+     * @return the optimised file, or null if the format cannot be decoded (e.g. WebP) and the original is kept
+     */
+    private Path optimise(Path image) throws IOException {
+        BufferedImage source = ImageIO.read(image.toFile());
+        if (source == null) {
+            return null;
+        }
+        BufferedImage scaled = ImageSupport.scale(source, Math.min(width, source.getWidth()));
+        Path optimised = Files.createTempFile(dir, "optimised", ".tmp");
+        ImageSupport.writeJpeg(scaled, quality, optimised);
+        return optimised;
+    }
+
+    private static String extensionOf(String contentType) {
+        return switch (contentType.split(";")[0].trim()) {
+            case "image/png" -> "png";
+            case "image/webp" -> "webp";
+            case "image/heic" -> "heic";
+            default -> "jpg";
+        };
+    }
+
+    private synchronized Map<String, String> index() {
+        if (index == null) {
+            index = new ConcurrentHashMap<>();
+            Path file = dir.resolve(INDEX_FILE);
+            if (Files.isRegularFile(file)) {
+                try {
+                    index.putAll(objectMapper.readValue(file.toFile(), new TypeReference<Map<String, String>>() {}));
+                } catch (IOException e) {
+                    LOG.debugf("Ignoring unreadable thumbnail index %s: %s", file, e.getMessage());
+                }
+            }
+        }
+        return index;
+    }
+
+    private synchronized void writeIndex(Map<String, String> index) {
+        try {
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "index", ".tmp");
+            objectMapper.writeValue(tmp.toFile(), index);
+            Files.move(tmp, dir.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warnf("Failed to write thumbnail index: %s", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package fr.tc11;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The club's tennis courts, read from {@code tc11.installations.file} (a JSON array,
+ * also exposed by Roq as {@code cdi:installations}), for the installation cards and
+ * the map of the homepage.
+ *
+ * The map is rendered at build time as a static SVG preview of the markers (no tiles,
+ * no script); public/map.js only loads Leaflet and the OpenStreetMap tiles when the
+ * map scrolls into view or is clicked.
+ */
+@ApplicationScoped
+public class Installations {
+
+    private static final Logger LOG = Logger.getLogger(Installations.class);
+
+    // Preview size: the height of the map container (h-72), wide enough for the labels
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 288;
+    private static final int PADDING = 28;
+    private static final int FONT_SIZE = 12;
+    private static final int LABEL_GAP = 14;
+
+    @ConfigProperty(name = "tc11.installations.file", defaultValue = "data/installations.json")
+    Path file;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile List<Installation> installations;
+    private volatile String preview;
+
+    /**
+     * A tennis court site.
+     *
+     * @param name display name
+     * @param coords latitude and longitude
+     * @param terrains number of courts
+     * @param surface court surface, lower case (terre battue, béton poreux...)
+     * @param url page of the site
+     * @param image photo of the site
+     */
+    public record Installation(String name, double[] coords, int terrains, String surface, String url, String image) {
+
+        public double lat() {
+            return coords[0];
+        }
+
+        public double lng() {
+            return coords[1];
+        }
+    }
+
+    /**
+     * Returns the installations, in the order of the data file.
+     *
+     * @return installations, empty if the file is missing or invalid
+     */
+    public List<Installation> list() {
+        if (installations == null) {
+            synchronized (this) {
+                if (installations == null) {
+                    installations = read();
+                }
+            }
+        }
+        return installations;
+    }
+
+    /**
+     * Returns the installations as a JSON array (same format as the data file),
+     * safe to inline in a {@code <script type="application/json">} element.
+     *
+     * @return JSON array
+     */
+    public String json() {
+        try {
+            // A "</script>" in a value would end the element
+            return objectMapper.writeValueAsString(list()).replace("<", "\\u003c");
+        } catch (JsonProcessingException e) {
+            LOG.warnf("Failed to serialize installations: %s", e.getMessage());
+            return "[]";
+        }
+    }
+
+    /**
+     * Returns a static map of the installations as an SVG element: one marker per
+     * installation, projected like the map tiles (Web Mercator) and labelled with its name.
+     *
+     * @return SVG markup, empty if there is no installation
+     */
+    public String preview() {
+        if (preview == null) {
+            preview = renderPreview(list());
+        }
+        return preview;
+    }
+
+    private List<Installation> read() {
+        if (!Files.isRegularFile(file)) {
+            LOG.warnf("Installations file %s not found", file);
+            return List.of();
+        }
+        try {
+            return List.copyOf(objectMapper.readValue(file.toFile(), new TypeReference<List<Installation>>() {}));
+        } catch (IOException e) {
+            LOG.warnf("Failed to read installations file %s: %s", file, e.getMessage());
+            return List.of();
+        }
+    }
+
+    static String renderPreview(List<Installation> installations) {
+        if (installations.isEmpty()) {
+            return "";
+        }
+        double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (Installation installation : installations) {
+            double x = mercatorX(installation.lng()), y = mercatorY(installation.lat());
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+        }
+        // Same scale on both axes, markers centred; labels take the horizontal room left
+        double scale = Math.min((WIDTH - 2 * PADDING * 4) / Math.max(maxX - minX, 1e-9),
+                (HEIGHT - 2 * PADDING) / Math.max(maxY - minY, 1e-9));
+        double offsetX = (WIDTH - (maxX - minX) * scale) / 2;
+        double offsetY = (HEIGHT - (maxY - minY) * scale) / 2;
+
+        List<Marker> markers = new ArrayList<>();
+        for (Installation installation : installations) {
+            double x = offsetX + (mercatorX(installation.lng()) - minX) * scale;
+            double y = offsetY + (maxY - mercatorY(installation.lat())) * scale;
+            markers.add(new Marker(installation, x, y, x < WIDTH / 2.0, y));
+        }
+        // Labels go on the outer side of their marker, pushed down when they would overlap
+        for (boolean left : new boolean[] {true, false}) {
+            double previous = -Double.MAX_VALUE;
+            for (Marker marker : markers.stream().filter(m -> m.left == left).sorted(Comparator.comparingDouble(m -> m.y)).toList()) {
+                marker.labelY = Math.max(marker.y, previous + LABEL_GAP);
+                previous = marker.labelY;
+            }
+        }
+
+        StringBuilder svg = new StringBuilder()
+                .append("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 ").append(WIDTH).append(' ').append(HEIGHT)
+                .append("\" class=\"w-full h-full\" role=\"img\" aria-label=\"Carte des installations du TC11\">")
+                .append("<rect width=\"").append(WIDTH).append("\" height=\"").append(HEIGHT).append("\" fill=\"#f8fafc\"/>")
+                .append("<g font-family=\"ui-sans-serif, system-ui, sans-serif\" font-size=\"").append(FONT_SIZE)
+                .append("\" fill=\"#0f172a\">");
+        for (Marker marker : markers) {
+            Installation installation = marker.installation;
+            double labelX = marker.left ? marker.x - 12 : marker.x + 12;
+            svg.append("<g><title>").append(escape(installation.name())).append(" — ")
+                    .append(installation.terrains()).append(installation.terrains() > 1 ? " terrains" : " terrain")
+                    .append("</title>");
+            if (marker.labelY != marker.y) {
+                svg.append("<line x1=\"").append(format(marker.x)).append("\" y1=\"").append(format(marker.y))
+                        .append("\" x2=\"").append(format(labelX)).append("\" y2=\"").append(format(marker.labelY))
+                        .append("\" stroke=\"#94a3b8\"/>");
+            }
+            svg.append("<circle cx=\"").append(format(marker.x)).append("\" cy=\"").append(format(marker.y))
+                    .append("\" r=\"7\" fill=\"#e15a0b\" stroke=\"#fff\" stroke-width=\"2\"/>")
+                    .append("<text x=\"").append(format(labelX + (marker.left ? -2 : 2))).append("\" y=\"").append(format(marker.labelY))
+                    .append("\" dy=\".35em\" text-anchor=\"").append(marker.left ? "end" : "start").append("\">")
+                    .append(escape(installation.name())).append("</text></g>");
+        }
+        return svg.append("</g></svg>").toString();
+    }
+
+    private static final class Marker {
+        final Installation installation;
+        final double x, y;
+        final boolean left;
+        double labelY;
+
+        Marker(Installation installation, double x, double y, boolean left, double labelY) {
+            this.installation = installation;
+            this.x = x;
+            this.y = y;
+            this.left = left;
+            this.labelY = labelY;
+        }
+    }
+
+    private static double mercatorX(double lng) {
+        return Math.toRadians(lng);
+    }
+
+    private static double mercatorY(double lat) {
+        return Math.log(Math.tan(Math.PI / 4 + Math.toRadians(lat) / 2));
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,55 @@
+package fr.tc11;
+
+import io.quarkus.qute.RawString;
+import io.quarkus.qute.TemplateExtension;
+import jakarta.enterprise.inject.spi.CDI;
+
+import java.util.List;
+
+/**
+ * Qute template extension to expose the club's installations to templates.
+ *
+ * Usage in templates: {#for site in installations:list}{site.name}{/for},
+ * {installations:json} (for public/map.js) and {installations:preview}
+ * (static SVG map, see {@link Installations}).
+ */
+@TemplateExtension(namespace = "installations")
+public class InstallationsTemplateExtension {
+
+    // Cache the installations instance, the data file is read once per application run
+    private static volatile Installations cachedInstallations;
+
+    /**
+     * Returns the installations, in the order of data/installations.json.
+     *
+     * @return list of installations
+     */
+    public static List<Installations.Installation> list() {
+        return installations().list();
+    }
+
+    /**
+     * Returns the installations as a JSON array, to inline in a script element.
+     *
+     * @return JSON array
+     */
+    public static RawString json() {
+        return new RawString(installations().json());
+    }
+
+    /**
+     * Returns the static SVG map of the installations.
+     *
+     * @return SVG element
+     */
+    public static RawString preview() {
+        return new RawString(installations().preview());
+    }
+
+    private static Installations installations() {
+        if (cachedInstallations == null) {
+            cachedInstallations = CDI.current().select(Installations.class).get();
+        }
+        return cachedInstallations;
+    }
+}
@@ -0,0 +1,269 @@
+package fr.tc11;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.CDPSession;
+import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.TimeoutError;
+import io.quarkus.runtime.LaunchMode;
+import io.quarkus.runtime.ShutdownEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Keeps a single headless Chromium warm and hands out fresh, isolated
+ * {@link BrowserContext}s to the scraping code.
+ *
+ * The browser is launched lazily on first use and closed on Quarkus shutdown.
+ * In dev mode Chromium is started as a standalone process with a remote debugging
+ * port, and Playwright connects to it over CDP: on live reload the Playwright driver
+ * of the old instance is closed, Chromium keeps running, and the next instance
+ * reconnects to it instead of booting a new browser.
+ *
+ * Playwright is not thread-safe: leases are serialised with a lock, and a context
+ * is only used and closed by the thread that leased it. Other threads abort a
+ * lease cooperatively ({@link #abortLease(Object)}): the lease thread waits in
+ * short slices ({@link #await(Object, double, DoubleConsumer)}) and gives up at
+ * the end of the current slice.
+ */
+@ApplicationScoped
+public class PlaywrightBrowserPool {
+
+    private static final Logger LOG = Logger.getLogger(PlaywrightBrowserPool.class);
+
+    private static final int BROWSER_TIMEOUT_MS = 30000;
+    // Longest a lease thread waits on the browser without checking for an abort
+    private static final int STEP_TIMEOUT_MS = 500;
+    // Default timeout of the calls that do not set one (page.content(), evaluations...)
+    private static final int LEASE_DEFAULT_TIMEOUT_MS = 5000;
+    private static final int CDP_CONNECT_TIMEOUT_MS = 2000;
+    private static final int CDP_RETRY_DELAY_MS = 100;
+
+    // Dev mode only: port used to reconnect to the warm browser after a live reload
+    @ConfigProperty(name = "tc11.playwright.dev-debugging-port", defaultValue = "9223")
+    int devDebuggingPort;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Lease key -> abort flag of the lease in progress
+    private final Map<Object, AtomicBoolean> leases = new ConcurrentHashMap<>();
+
+    // Package-private for testing
+    Supplier<Playwright> playwrightFactory = Playwright::create;
+    Playwright playwright;
+    Browser browser;
+    // True when connected over CDP to the standalone dev-mode browser
+    boolean connectedOverCdp;
+    // Dev-mode browser process started by this instance, while it may still be starting up
+    private Process startingBrowser;
+
+    /**
+     * Runs the action with a new browser context, closed afterwards.
+     * Waits (interruptibly) while another caller is using the browser.
+     *
+     * @param key identifies the lease, so that it can be aborted with {@link #abortLease(Object)}
+     * @param options context options (user agent, ...)
+     * @param action code using the context
+     * @return the action result
+     */
+    public <T> T withContext(Object key, Browser.NewContextOptions options, Function<BrowserContext, T> action)
+            throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            BrowserContext context = browser().newContext(options);
+            context.setDefaultTimeout(LEASE_DEFAULT_TIMEOUT_MS);
+            context.setDefaultNavigationTimeout(BROWSER_TIMEOUT_MS);
+            AtomicBoolean aborted = new AtomicBoolean();
+            leases.put(key, aborted);
+            try {
+                return action.apply(context);
+            } finally {
+                leases.remove(key, aborted);
+                closeQuietly(context);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Asks the lease in progress under the given key, if any, to stop: its next
+     * {@link #await} slice throws, and the lease thread closes the context.
+     * The browser itself stays warm. May be called from any thread.
+     */
+    public void abortLease(Object key) {
+        AtomicBoolean aborted = leases.get(key);
+        if (aborted != null) {
+            LOG.debugf("Aborting in-flight browser lease for %s", key);
+            aborted.set(true);
+        }
+    }
+
+    /**
+     * Runs a browser wait (load state, waitForFunction...) in slices of at most
+     * {@value #STEP_TIMEOUT_MS}ms, checking between slices whether the lease was
+     * aborted or the thread interrupted. Must be called from the lease thread.
+     *
+     * @param key key of the lease
+     * @param timeoutMs overall timeout
+     * @param step the wait, called with the timeout of a slice; throws {@link TimeoutError} when the slice elapses
+     * @return true once the wait succeeded, false if the overall timeout elapsed
+     * @throws CancellationException if the lease was aborted
+     */
+    public boolean await(Object key, double timeoutMs, DoubleConsumer step) {
+        AtomicBoolean aborted = leases.getOrDefault(key, new AtomicBoolean());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos((long) timeoutMs);
+        while (true) {
+            if (aborted.get() || Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Browser lease aborted for " + key);
+            }
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMs <= 0) {
+                return false;
+            }
+            try {
+                step.accept(Math.min(STEP_TIMEOUT_MS, remainingMs));
+                return true;
+            } catch (TimeoutError e) {
+                // Slice elapsed: check for an abort, then wait again
+            }
+        }
+    }
+
+    void onShutdown(@Observes ShutdownEvent event) {
+        lock.lock();
+        try {
+            if (playwright == null) {
+                return;
+            }
+            if (connectedOverCdp && !event.isStandardShutdown()) {
+                // Live reload: Chromium is not a child of the driver and keeps running for the next instance
+                LOG.debug("Keeping headless browser warm across live reload");
+                closeQuietly(playwright);
+                playwright = null;
+                browser = null;
+                return;
+            }
+            if (connectedOverCdp) {
+                // Standalone browser process (dev mode): ask it to exit
+                try {
+                    CDPSession session = browser.newBrowserCDPSession();
+                    session.send("Browser.close");
+                } catch (Exception e) {
+                    LOG.debugf("Failed to close remote browser: %s", e.getMessage());
+                }
+            }
+            closeQuietly(playwright);
+            playwright = null;
+            browser = null;
+            LOG.info("Headless browser closed");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the warm browser, launching (or reconnecting to) it if needed.
+     * Must be called with the lock held.
+     */
+    private Browser browser() {
+        if (browser != null && browser.isConnected()) {
+            return browser;
+        }
+        if (playwright != null) {
+            closeQuietly(playwright);
+        }
+        playwright = playwrightFactory.get();
+        if (LaunchMode.current() == LaunchMode.DEVELOPMENT) {
+            browser = connectOverCdp();
+            if (browser != null) {
+                LOG.info("Reconnected to warm headless browser");
+            } else if (launchStandalone()) {
+                browser = connectOverCdp();
+            }
+            if (browser != null) {
+                connectedOverCdp = true;
+                return browser;
+            }
+        }
+        LOG.info("Launching headless browser");
+        browser = playwright.chromium().launch(new BrowserType.LaunchOptions()
+                .setHeadless(true)
+                .setTimeout(BROWSER_TIMEOUT_MS));
+        connectedOverCdp = false;
+        return browser;
+    }
+
+    /**
+     * Connects to the dev-mode browser over CDP, retrying until it listens.
+     *
+     * @return the browser, or null if nothing answers on the debugging port
+     */
+    private Browser connectOverCdp() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BROWSER_TIMEOUT_MS);
+        do {
+            try {
+                return playwright.chromium().connectOverCDP("http://127.0.0.1:" + devDebuggingPort,
+                        new BrowserType.ConnectOverCDPOptions().setTimeout(CDP_CONNECT_TIMEOUT_MS));
+            } catch (Exception e) {
+                LOG.debugf("No headless browser on port %d: %s", devDebuggingPort, e.getMessage());
+            }
+            try {
+                Thread.sleep(CDP_RETRY_DELAY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        } while (startingBrowser != null && startingBrowser.isAlive() && System.nanoTime() < deadline);
+        return null;
+    }
+
+    /**
+     * Starts Chromium (the one installed by Playwright) as a process of its own, so
+     * that it outlives the Playwright driver on live reload.
+     *
+     * @return true if the process started
+     */
+    private boolean launchStandalone() {
+        try {
+            Path profile = Files.createTempDirectory("tc11-chromium");
+            LOG.info("Launching headless browser for dev mode");
+            startingBrowser = new ProcessBuilder(playwright.chromium().executablePath(),
+                    "--headless=new",
+                    "--remote-debugging-port=" + devDebuggingPort,
+                    "--user-data-dir=" + profile,
+                    "--no-first-run",
+                    "--no-default-browser-check",
+                    "about:blank")
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            return true;
+        } catch (Exception e) {
+            LOG.warnf("Failed to start headless browser process: %s", e.getMessage());
+            return false;
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            LOG.debugf("Failed to close %s: %s", closeable.getClass().getSimpleName(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package fr.tc11;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.ShutdownEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Post-generation stage that writes pre-compressed .gz and .br siblings of the
+ * text files of the generated site (pages, JSON feeds, CSS, JS...), so that static
+ * hosts can serve them without compressing on the fly.
+ *
+ * Runs once the site is generated and the build files are copied into it (see
+ * {@link SiteOutput}). Files are compressed in parallel, one thread per core, at
+ * the highest level. Compressed files are kept in {@code tc11.compress.dir} by
+ * content hash: a file whose content did not change since the previous build is
+ * not compressed again. A sibling that is not smaller than its file is not written.
+ *
+ * gzip uses the JDK. The JDK has no Brotli encoder, so .br files are only written
+ * when the {@code brotli} command is available.
+ */
+@ApplicationScoped
+public class PrecompressedAssets {
+
+    private static final Logger LOG = Logger.getLogger(PrecompressedAssets.class);
+
+    private static final String INDEX_FILE = "index.json";
+    private static final long BROTLI_TIMEOUT_SECONDS = 60;
+
+    @ConfigProperty(name = "tc11.compress.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "tc11.compress.dir", defaultValue = "target/compressed")
+    Path dir;
+
+    @ConfigProperty(name = "tc11.compress.extensions", defaultValue = "html,css,js,json,xml,svg,txt")
+    List<String> extensions;
+
+    // Smaller files are not worth a request header negotiation
+    @ConfigProperty(name = "tc11.compress.min-size", defaultValue = "1024")
+    long minSize;
+
+    @ConfigProperty(name = "tc11.compress.brotli-command", defaultValue = "brotli")
+    String brotliCommand;
+
+    @Inject
+    SiteOutput siteOutput;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Sizes of a compressed file.
+     *
+     * @param size original size
+     * @param gzip size of the .gz sibling, 0 if not written
+     * @param brotli size of the .br sibling, 0 if not written
+     */
+    record Result(long size, long gzip, long brotli) {}
+
+    // After SiteOutput has copied the build files into the site
+    void onShutdown(@Observes @Priority(Interceptor.Priority.APPLICATION + 1000) ShutdownEvent event) {
+        Path outputDir = siteOutput.outputDir();
+        if (!enabled || !siteOutput.isGenerating() || !Files.isDirectory(outputDir)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(outputDir)) {
+            files = walk.filter(Files::isRegularFile).filter(this::isCompressible).toList();
+        } catch (IOException e) {
+            LOG.warnf("Failed to list %s: %s", outputDir, e.getMessage());
+            return;
+        }
+        boolean brotli = hasBrotli();
+        if (!brotli) {
+            LOG.infof("%s not found, writing .gz files only", brotliCommand);
+        }
+
+        Map<String, Result> index = readIndex();
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                Thread.ofPlatform().name("compress-", 0).daemon().factory());
+        List<Future<Result>> results = new ArrayList<>();
+        try {
+            for (Path file : files) {
+                results.add(executor.submit(() -> compress(file, brotli, index, seen)));
+            }
+            long before = 0, after = 0;
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    Result result = results.get(i).get();
+                    if (result == null) {
+                        continue;
+                    }
+                    long best = Math.min(result.size(),
+                            Math.min(result.gzip() > 0 ? result.gzip() : Long.MAX_VALUE, result.brotli() > 0 ? result.brotli() : Long.MAX_VALUE));
+                    before += result.size();
+                    after += best;
+                    LOG.debugf("Compressed /%s: %d -> %d bytes gzip, %s brotli (%d saved)",
+                            outputDir.relativize(files.get(i)), result.size(), result.gzip(),
+                            result.brotli() > 0 ? result.brotli() + " bytes" : "no", result.size() - best);
+                } catch (ExecutionException e) {
+                    LOG.warnf("Failed to compress %s: %s", files.get(i), e.getCause().getMessage());
+                }
+            }
+            LOG.infof("Pre-compressed %d site files: %d -> %d bytes", files.size(), before, after);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        // Drop the files of contents that are no longer part of the site
+        index.keySet().retainAll(seen);
+        try (Stream<Path> stored = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) stored::iterator) {
+                String name = file.getFileName().toString();
+                if ((name.endsWith(".gz") || name.endsWith(".br")) && !seen.contains(name.substring(0, name.length() - 3))) {
+                    Files.delete(file);
+                }
+            }
+        } catch (IOException e) {
+            LOG.debugf("Failed to clean %s: %s", dir, e.getMessage());
+        }
+        writeIndex(index);
+    }
+
+    private Result compress(Path file, boolean brotli, Map<String, Result> index, Set<String> seen) throws IOException, InterruptedException {
+        long size = Files.size(file);
+        if (size < minSize) {
+            return null;
+        }
+        // Generated files are rewritten by every build: only their content tells whether they changed
+        String hash = SiteOutput.sha256(file);
+        seen.add(hash);
+        Path gz = dir.resolve(hash + ".gz");
+        Path br = dir.resolve(hash + ".br");
+        Result known = index.get(hash);
+        if (known == null || (known.gzip() > 0 && !Files.isRegularFile(gz)) || (brotli && known.brotli() == 0) || (known.brotli() > 0 && !Files.isRegularFile(br))) {
+            Files.createDirectories(dir);
+            long gzip = gzip(file, gz);
+            long brotliSize = brotli ? brotli(file, br) : 0;
+            // Not smaller: the sibling would only be overhead
+            known = new Result(size, gzip < size ? gzip : 0, brotliSize > 0 && brotliSize < size ? brotliSize : 0);
+            index.put(hash, known);
+        }
+        copySibling(known.gzip() > 0 ? gz : null, file.resolveSibling(file.getFileName() + ".gz"));
+        copySibling(known.brotli() > 0 ? br : null, file.resolveSibling(file.getFileName() + ".br"));
+        return known;
+    }
+
+    private static long gzip(Path file, Path target) throws IOException {
+        Path tmp = Files.createTempFile(target.getParent(), "gzip", ".tmp");
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(tmp)) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            Files.copy(file, output);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(target);
+    }
+
+    private long brotli(Path file, Path target) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(brotliCommand, "--best", "--force", "--output=" + target, file.toString())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        if (!process.waitFor(BROTLI_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            throw new IOException(brotliCommand + " timed out");
+        }
+        if (process.exitValue() != 0) {
+            throw new IOException(brotliCommand + " exited with " + process.exitValue());
+        }
+        return Files.size(target);
+    }
+
+    private static void copySibling(Path compressed, Path sibling) throws IOException {
+        if (compressed == null) {
+            Files.deleteIfExists(sibling);
+            return;
+        }
+        // Copy the content only: work files are private, the site must be world-readable
+        try (InputStream input = Files.newInputStream(compressed)) {
+            Files.copy(input, sibling, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private boolean isCompressible(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && extensions.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private boolean hasBrotli() {
+        try {
+            Process process = new ProcessBuilder(brotliCommand, "--version")
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            return process.waitFor(10, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Map<String, Result> readIndex() {
+        Map<String, Result> index = new ConcurrentHashMap<>();
+        Path file = dir.resolve(INDEX_FILE);
+        if (Files.isRegularFile(file)) {
+            try {
+                index.putAll(objectMapper.readValue(file.toFile(), new TypeReference<Map<String, Result>>() {}));
+            } catch (IOException e) {
+                LOG.debugf("Ignoring unreadable compression index %s: %s", file, e.getMessage());
+            }
+        }
+        return index;
+    }
+
+    private void writeIndex(Map<String, Result> index) {
+        try {
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "index", ".tmp");
+            objectMapper.writeValue(tmp.toFile(), index);
+            Files.move(tmp, dir.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warnf("Failed to write compression index: %s", e.getMessage());
+        }
+    }
+}
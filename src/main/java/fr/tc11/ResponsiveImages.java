@@ -0,0 +1,265 @@
+package fr.tc11;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Build stage that turns the (often multi-megabyte) images of the posts into
+ * resized variants for srcset, plus a tiny blurred placeholder.
+ *
+ * Each image is scaled to the widths of {@code tc11.images.widths} that are
+ * narrower than itself (and to its own width if it is narrower than the largest
+ * one), recompressed, and published under /img/ with a content-hashed name.
+ * Images are processed in parallel on one thread per core, started as soon as
+ * the application starts; templates only wait for the images they use.
+ *
+ * Results are kept in {@code tc11.images.dir} between builds, indexed by the
+ * content hash of the source (see {@link ContentHashes}): an unchanged image is
+ * never decoded again.
+ *
+ * Only active while the site is generated (see {@link SiteOutput}); otherwise
+ * pages keep referencing the original images.
+ */
+@ApplicationScoped
+public class ResponsiveImages {
+
+    private static final Logger LOG = Logger.getLogger(ResponsiveImages.class);
+
+    private static final String SITE_PATH = "/img/";
+    private static final String INDEX_FILE = "index.json";
+    // Formats ImageIO can decode
+    private static final Set<String> RASTER_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "bmp");
+
+    @ConfigProperty(name = "tc11.images.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "tc11.images.dir", defaultValue = "target/responsive-images")
+    Path dir;
+
+    @ConfigProperty(name = "tc11.images.widths", defaultValue = "480,960,1600")
+    List<Integer> widths;
+
+    // JPEG quality of the variants, between 0 and 1
+    @ConfigProperty(name = "tc11.images.quality", defaultValue = "0.8")
+    float quality;
+
+    // Width of the inline placeholder, in pixels
+    @ConfigProperty(name = "tc11.images.placeholder-width", defaultValue = "16")
+    int placeholderWidth;
+
+    @Inject
+    SiteOutput siteOutput;
+
+    @Inject
+    SiteFiles siteFiles;
+
+    @Inject
+    ContentHashes contentHashes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Path, CompletableFuture<Processed>> processed = new ConcurrentHashMap<>();
+    // Source content hash -> processed image (loaded lazily)
+    private Map<String, Processed> index;
+    private ExecutorService executor;
+
+    /**
+     * A resized copy of an image.
+     *
+     * @param width width in pixels
+     * @param url site path of the file
+     */
+    public record Variant(int width, String url) {}
+
+    /**
+     * The variants and placeholder of an image.
+     *
+     * @param width width of the source image
+     * @param height height of the source image
+     * @param variants variants, narrowest first
+     * @param placeholder tiny JPEG data URI
+     */
+    public record Processed(int width, int height, List<Variant> variants, String placeholder) {
+
+        /**
+         * Returns the value of a srcset attribute, e.g. "/img/3f2a-480.jpg 480w, /img/3f2a-960.jpg 960w".
+         */
+        public String srcset() {
+            return variants.stream().map(v -> v.url() + " " + v.width() + "w").collect(Collectors.joining(", "));
+        }
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (!isActive()) {
+            return;
+        }
+        // Unchanged images are index hits: they only cost a read of the source to hash it
+        List<Path> images = siteFiles.contentFiles().stream()
+                .filter(ResponsiveImages::isRaster)
+                .toList();
+        LOG.infof("Processing %d post images on %d threads", images.size(), Runtime.getRuntime().availableProcessors());
+        images.forEach(this::submit);
+    }
+
+    void onShutdown(@Observes ShutdownEvent event) {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the variants of an image, waiting for its processing if needed.
+     *
+     * @param source source file (see {@link SiteFiles#resolve(String, String)})
+     * @return the variants, or null if the stage is inactive or the image cannot be processed
+     */
+    public Processed variants(Path source) {
+        if (!isActive() || source == null || !isRaster(source)) {
+            return null;
+        }
+        try {
+            return submit(source).join();
+        } catch (CompletionException e) {
+            LOG.warnf("Failed to process image %s: %s", source, e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    private boolean isActive() {
+        return enabled && siteOutput.isGenerating();
+    }
+
+    private CompletableFuture<Processed> submit(Path source) {
+        return processed.computeIfAbsent(source.toAbsolutePath().normalize(),
+                file -> CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return process(file);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor()));
+    }
+
+    private Processed process(Path source) throws IOException {
+        String hash = contentHashes.hash(source).substring(0, 16);
+        Map<String, Processed> index = index();
+        Processed result = index.get(hash);
+        if (result == null || !result.variants().stream().allMatch(v -> Files.isRegularFile(fileOf(v)))) {
+            result = resize(source, hash);
+            if (result == null) {
+                return null;
+            }
+            index.put(hash, result);
+            writeIndex();
+        }
+        for (Variant variant : result.variants()) {
+            siteOutput.publish(variant.url(), fileOf(variant));
+        }
+        return result;
+    }
+
+    private Processed resize(Path source, String hash) throws IOException {
+        BufferedImage image = ImageIO.read(source.toFile());
+        if (image == null) {
+            return null;
+        }
+        // Images with transparency stay PNG, the others become JPEG
+        boolean alpha = image.getColorModel().hasAlpha();
+        String extension = alpha ? "png" : "jpg";
+        int largest = widths.stream().mapToInt(Integer::intValue).max().orElse(image.getWidth());
+
+        List<Integer> targets = new ArrayList<>(widths.stream().filter(w -> w < image.getWidth()).sorted().toList());
+        if (image.getWidth() <= largest) {
+            targets.add(image.getWidth());
+        }
+
+        Files.createDirectories(dir);
+        List<Variant> variants = new ArrayList<>();
+        for (int width : targets) {
+            BufferedImage scaled = width == image.getWidth() ? image : ImageSupport.scale(image, width);
+            String name = hash + "-" + width + "." + extension;
+            Path tmp = Files.createTempFile(dir, "variant", ".tmp");
+            if (alpha) {
+                ImageIO.write(scaled, "png", tmp.toFile());
+            } else {
+                ImageSupport.writeJpeg(scaled, quality, tmp);
+            }
+            Files.move(tmp, dir.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            variants.add(new Variant(width, SITE_PATH + name));
+        }
+
+        String placeholder = ImageSupport.jpegDataUri(
+                ImageSupport.scale(image, Math.min(placeholderWidth, image.getWidth())), 0.5f);
+        LOG.debugf("Processed %s into %d variants", source.getFileName(), variants.size());
+        return new Processed(image.getWidth(), image.getHeight(), List.copyOf(variants), placeholder);
+    }
+
+    private Path fileOf(Variant variant) {
+        return dir.resolve(variant.url().substring(SITE_PATH.length()));
+    }
+
+    private static boolean isRaster(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && RASTER_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            // CPU-bound work: one platform thread per core
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                    Thread.ofPlatform().name("responsive-images-", 0).daemon().factory());
+        }
+        return executor;
+    }
+
+    private synchronized Map<String, Processed> index() {
+        if (index == null) {
+            index = new ConcurrentHashMap<>();
+            Path file = dir.resolve(INDEX_FILE);
+            if (Files.isRegularFile(file)) {
+                try {
+                    index.putAll(objectMapper.readValue(file.toFile(), new TypeReference<Map<String, Processed>>() {}));
+                } catch (IOException e) {
+                    LOG.debugf("Ignoring unreadable image index %s: %s", file, e.getMessage());
+                }
+            }
+        }
+        return index;
+    }
+
+    private synchronized void writeIndex() {
+        try {
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "index", ".tmp");
+            objectMapper.writeValue(tmp.toFile(), index);
+            Files.move(tmp, dir.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warnf("Failed to write image index: %s", e.getMessage());
+        }
+    }
+}
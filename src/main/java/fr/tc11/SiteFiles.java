@@ -0,0 +1,153 @@
+package fr.tc11;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Maps the URLs used in pages back to the source files in content/ and public/,
+ * for the build stages that derive files from them (responsive images, ...).
+ *
+ * Post files are referenced by URLs whose directory is Roq's slug of the post
+ * folder (accents and emoji removed, date prefix possibly dropped), or by names
+ * relative to the page. They are found by file name, and the post folder is used
+ * to tell apart files with the same name in different posts.
+ */
+@ApplicationScoped
+public class SiteFiles {
+
+    private static final Logger LOG = Logger.getLogger(SiteFiles.class);
+
+    @ConfigProperty(name = "tc11.site.content-dir", defaultValue = "content")
+    Path contentDir;
+
+    @ConfigProperty(name = "tc11.site.public-dir", defaultValue = "public")
+    Path publicDir;
+
+    // File name -> content files with that name (built lazily)
+    private volatile Map<String, List<Path>> byName;
+
+    /**
+     * Resolves a file reference found in a page to its source file.
+     *
+     * @param url absolute (/posts/interclubs/photo.jpg), relative (photo.jpg, ./photo.jpg) and/or
+     *            percent-encoded reference; external and data URLs are not resolved
+     * @param pageUrl URL of the page containing the reference, or null
+     * @return the source file, or null if it cannot be found
+     */
+    public Path resolve(String url, String pageUrl) {
+        if (url == null || url.isBlank() || url.contains("://") || url.startsWith("//") || url.startsWith("data:")) {
+            return null;
+        }
+        String path = decode(stripQuery(url));
+        if (path.startsWith("./")) {
+            path = path.substring(2);
+        }
+        if (!path.startsWith("/") && pageUrl != null) {
+            String base = decode(stripQuery(pageUrl));
+            path = base.substring(0, base.lastIndexOf('/') + 1) + path;
+        }
+
+        if (path.startsWith("/")) {
+            for (Path root : List.of(publicDir, contentDir)) {
+                Path file = root.resolve(path.substring(1)).normalize();
+                if (file.startsWith(root) && Files.isRegularFile(file)) {
+                    return file;
+                }
+            }
+        }
+
+        int slash = path.lastIndexOf('/');
+        List<Path> candidates = byName().getOrDefault(path.substring(slash + 1), List.of());
+        if (candidates.size() <= 1) {
+            return candidates.isEmpty() ? null : candidates.get(0);
+        }
+        // Same name in several posts: pick the one whose folder matches the URL directory
+        String folder = slash > 0 ? slug(path.substring(path.lastIndexOf('/', slash - 1) + 1, slash)) : "";
+        for (Path candidate : candidates) {
+            if (!folder.isEmpty() && slug(candidate.getParent().getFileName().toString()).contains(folder)) {
+                return candidate;
+            }
+        }
+        return candidates.get(0);
+    }
+
+    /**
+     * Returns the content directory (content/).
+     * Other beans must use this accessor: they only see a client proxy, whose fields are not set.
+     */
+    public Path contentDir() {
+        return contentDir;
+    }
+
+    /**
+     * Returns the public assets directory (public/).
+     */
+    public Path publicDir() {
+        return publicDir;
+    }
+
+    /**
+     * Returns every file under the content directory.
+     */
+    public List<Path> contentFiles() {
+        return byName().values().stream().flatMap(List::stream).toList();
+    }
+
+    /**
+     * Reduces a name to lower-case ASCII letters, digits and dashes, like a URL slug.
+     */
+    static String slug(String name) {
+        String ascii = Normalizer.normalize(name, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return ascii.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
+    }
+
+    private Map<String, List<Path>> byName() {
+        Map<String, List<Path>> index = byName;
+        if (index == null) {
+            index = new HashMap<>();
+            if (Files.isDirectory(contentDir)) {
+                try (Stream<Path> files = Files.walk(contentDir)) {
+                    for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                        index.computeIfAbsent(file.getFileName().toString(), name -> new ArrayList<>()).add(file);
+                    }
+                } catch (IOException e) {
+                    LOG.warnf("Failed to list %s: %s", contentDir, e.getMessage());
+                }
+            }
+            byName = index;
+        }
+        return index;
+    }
+
+    private static String stripQuery(String url) {
+        int end = url.length();
+        int q = url.indexOf('?');
+        if (q >= 0) end = q;
+        int h = url.indexOf('#');
+        if (h >= 0 && h < end) end = h;
+        return url.substring(0, end);
+    }
+
+    private static String decode(String path) {
+        try {
+            // '+' is a literal plus in a path, not a space
+            return URLDecoder.decode(path.replace("+", "%2B"), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return path;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package fr.tc11;
+
+import io.quarkus.runtime.ShutdownEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Files produced by the build stages (downloaded thumbnails, ...) that must end up
+ * in the generated static site next to the pages rendered by Roq.
+ *
+ * Build stages write their files to a work directory under target/ and register
+ * them here with the path they are served at. Once Roq has generated the site and
+ * the application shuts down, the registered files are copied into
+ * {@code tc11.site.output-dir}.
+ *
+ * Outside site generation (dev mode, tests) nothing is copied, and build stages
+ * keep referencing the original resources.
+ */
+@ApplicationScoped
+public class SiteOutput {
+
+    private static final Logger LOG = Logger.getLogger(SiteOutput.class);
+
+    // True while Roq generates the static site (batch mode)
+    @ConfigProperty(name = "tc11.site.generate", defaultValue = "false")
+    boolean generate;
+
+    // Directory where Roq writes the generated site
+    @ConfigProperty(name = "tc11.site.output-dir", defaultValue = "target/roq")
+    Path outputDir;
+
+    // Site path (e.g. /instagram/3f2a9c.jpg) -> file to copy there
+    private final Map<String, Path> files = new ConcurrentHashMap<>();
+
+    /**
+     * Checks whether the static site is being generated, i.e. whether published files will be part of it.
+     */
+    public boolean isGenerating() {
+        return generate;
+    }
+
+    /**
+     * Returns the directory of the generated site.
+     */
+    public Path outputDir() {
+        return outputDir;
+    }
+
+    /**
+     * Registers a file to copy into the generated site.
+     *
+     * @param sitePath absolute path the file is served at, e.g. /instagram/3f2a9c.jpg
+     * @param file file to copy
+     * @return the site path, to reference from templates
+     */
+    public String publish(String sitePath, Path file) {
+        files.put(sitePath, file);
+        return sitePath;
+    }
+
+    /**
+     * Returns the SHA-256 of a file as a hex string, streaming the file.
+     */
+    public static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream input = new DigestInputStream(Files.newInputStream(file), digest)) {
+            input.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    void onShutdown(@Observes ShutdownEvent event) {
+        if (!generate || files.isEmpty()) {
+            return;
+        }
+        int copied = 0;
+        for (Map.Entry<String, Path> entry : files.entrySet()) {
+            Path target = outputDir.resolve(entry.getKey().substring(1));
+            try {
+                Files.createDirectories(target.getParent());
+                // Copy the content only: work files are created private (temp files), the site must be world-readable
+                try (InputStream input = Files.newInputStream(entry.getValue())) {
+                    Files.copy(input, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                copied++;
+            } catch (IOException e) {
+                LOG.warnf("Failed to copy %s to %s: %s", entry.getValue(), target, e.getMessage());
+            }
+        }
+        LOG.infof("Copied %d build files into %s", copied, outputDir);
+    }
+}
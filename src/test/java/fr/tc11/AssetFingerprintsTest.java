@@ -0,0 +1,178 @@
+package fr.tc11;
+
+import io.quarkus.qute.Engine;
+import io.quarkus.qute.NamespaceResolver;
+import io.quarkus.qute.ReflectionValueResolver;
+import io.quarkus.runtime.ShutdownEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for AssetFingerprints (hashed URLs, integrity values, _headers and asset-manifest.json)
+ * and the asset: template namespace.
+ */
+class AssetFingerprintsTest {
+
+    private static final String CSS = "body { color: #0f172a; }\n";
+
+    @TempDir
+    Path root;
+
+    private SiteOutput siteOutput;
+    private AssetFingerprints fingerprints;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(root.resolve("public/vendor/alpinejs"));
+        Files.writeString(root.resolve("public/style.css"), CSS);
+        Files.writeString(root.resolve("public/vendor/alpinejs/cdn.min.js"), "window.Alpine={};\n");
+        Files.createDirectories(root.resolve("public/assets"));
+        Files.writeString(root.resolve("public/tailwind.css"), ".flex{display:flex}\n");
+        Files.write(root.resolve("public/assets/tc11-logo.png"), new byte[] {(byte) 0x89, 'P', 'N', 'G'});
+        Files.writeString(root.resolve("secret.txt"), "outside public/");
+
+        siteOutput = new SiteOutput();
+        siteOutput.generate = true;
+        siteOutput.outputDir = root.resolve("site");
+        SiteFiles siteFiles = new SiteFiles();
+        siteFiles.contentDir = root.resolve("content");
+        siteFiles.publicDir = root.resolve("public");
+        fingerprints = new AssetFingerprints();
+        fingerprints.enabled = true;
+        fingerprints.dir = root.resolve("asset-fingerprints");
+        fingerprints.headersFile = "_headers";
+        fingerprints.manifestFile = "asset-manifest.json";
+        fingerprints.immutablePaths = List.of("/img/*", "/instagram/*");
+        fingerprints.siteOutput = siteOutput;
+        fingerprints.siteFiles = siteFiles;
+        fingerprints.contentHashes = new ContentHashes();
+    }
+
+    @Test
+    void testUrlIsOriginalPathOutsideGeneration() {
+        siteOutput.generate = false;
+
+        assertEquals("/style.css", fingerprints.url("style.css"));
+        assertEquals("/style.css", fingerprints.url("/style.css"));
+    }
+
+    @Test
+    void testUrlIsOriginalPathWhenDisabled() {
+        fingerprints.enabled = false;
+
+        assertEquals("/style.css", fingerprints.url("style.css"));
+    }
+
+    @Test
+    void testUrlInsertsContentHashBeforeExtension() throws Exception {
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(CSS.getBytes())).substring(0, 8);
+
+        assertEquals("/style." + hash + ".css", fingerprints.url("style.css"));
+        // Same path with a leading slash: same (memoised) URL
+        assertEquals("/style." + hash + ".css", fingerprints.url("/style.css"));
+        assertTrue(fingerprints.url("vendor/alpinejs/cdn.min.js").matches("/vendor/alpinejs/cdn\\.min\\.[0-9a-f]{8}\\.js"));
+    }
+
+    @Test
+    void testUnknownAssetsKeepTheirPath() {
+        assertEquals("/missing.css", fingerprints.url("missing.css"));
+        assertEquals("/../secret.txt", fingerprints.url("../secret.txt"));
+        assertEquals("", fingerprints.integrity("missing.css"));
+        assertEquals("", fingerprints.integrity("../secret.txt"));
+    }
+
+    @Test
+    void testIntegrityIsSha384OfFile() throws NoSuchAlgorithmException {
+        String expected = "sha384-" + Base64.getEncoder().encodeToString(
+                MessageDigest.getInstance("SHA-384").digest(CSS.getBytes()));
+
+        assertEquals(expected, fingerprints.integrity("style.css"));
+        // Also outside generation: the attribute must match the served file either way
+        siteOutput.generate = false;
+        assertEquals(expected, fingerprints.integrity("/style.css"));
+    }
+
+    @Test
+    void testHeadersAndManifestListHashedAssets() throws IOException {
+        String css = fingerprints.url("style.css");
+        String js = fingerprints.url("vendor/alpinejs/cdn.min.js");
+        fingerprints.url("missing.css");
+
+        fingerprints.onShutdown(new ShutdownEvent());
+        siteOutput.onShutdown(new ShutdownEvent());
+
+        Path site = root.resolve("site");
+        assertEquals(CSS, Files.readString(site.resolve(css.substring(1))));
+        assertEquals("# Generated: content-hashed files never change\n"
+                        + "/img/*\n  Cache-Control: public, max-age=31536000, immutable\n"
+                        + "/instagram/*\n  Cache-Control: public, max-age=31536000, immutable\n"
+                        + css + "\n  Cache-Control: public, max-age=31536000, immutable\n"
+                        + js + "\n  Cache-Control: public, max-age=31536000, immutable\n",
+                Files.readString(site.resolve("_headers")));
+        assertEquals("{\n  \"/style.css\" : \"" + css + "\",\n  \"/vendor/alpinejs/cdn.min.js\" : \"" + js + "\"\n}",
+                Files.readString(site.resolve("asset-manifest.json")).replace("\r\n", "\n").strip());
+    }
+
+    @Test
+    void testHeadPartialRendersHashedUrlsAndIntegrity() throws IOException {
+        String html = engine().parse(Files.readString(Path.of("templates/partials/head.html")))
+                .data("title", "Accueil")
+                .render();
+
+        String css = fingerprints.url("style.css");
+        String js = fingerprints.url("vendor/alpinejs/cdn.min.js");
+        assertTrue(css.matches("/style\\.[0-9a-f]{8}\\.css"), css);
+        assertTrue(html.contains("<title>Accueil</title>"), html);
+        assertTrue(html.contains("<link rel=\"stylesheet\" href=\"" + css + "\" />"), html);
+        assertTrue(html.contains("<link rel=\"stylesheet\" href=\"" + fingerprints.url("tailwind.css") + "\" />"), html);
+        assertTrue(html.contains("<script defer src=\"" + js + "\" integrity=\"" + fingerprints.integrity("vendor/alpinejs/cdn.min.js") + "\"></script>"), html);
+        assertTrue(html.contains("<link rel=\"icon\" href=\"" + fingerprints.url("assets/tc11-logo.png") + "\" />"), html);
+    }
+
+    @Test
+    void testNamespaceRendersPlainPathsOutsideGeneration() {
+        siteOutput.generate = false;
+
+        assertEquals("<img src=\"/assets/tc11-logo.png\" data-sri=\"\">",
+                engine().parse("<img src=\"{asset:url('assets/tc11-logo.png')}\" data-sri=\"{asset:integrity('missing.js')}\">").render());
+    }
+
+    @Test
+    void testNothingWrittenOutsideGeneration() {
+        siteOutput.generate = false;
+        fingerprints.url("style.css");
+
+        fingerprints.onShutdown(new ShutdownEvent());
+
+        assertFalse(Files.exists(fingerprints.dir));
+    }
+
+    /**
+     * Qute engine with the asset: namespace, resolved like {@link AssetTemplateExtension} does.
+     */
+    private Engine engine() {
+        return Engine.builder()
+                .addDefaults()
+                .addValueResolver(new ReflectionValueResolver())
+                .addNamespaceResolver(NamespaceResolver.builder("asset")
+                        .resolve(context -> context.evaluate(context.getParams().get(0)).thenApply(path -> switch (context.getName()) {
+                            case "url" -> fingerprints.url(path.toString());
+                            case "integrity" -> fingerprints.integrity(path.toString());
+                            default -> throw new IllegalArgumentException(context.getName());
+                        }))
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,218 @@
+package fr.tc11;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for AttachmentMetadata PDF reading (page count and preview).
+ */
+class AttachmentMetadataTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void testPageCountFromXrefAndTrailer() {
+        Pdf pdf = new Pdf()
+                .object("<< /Type /Catalog /Pages 2 0 R >>")
+                .object("<< /Type /Pages /Kids [3 0 R 4 0 R 5 0 R] /Count 3 >>")
+                .object("<< /Type /Page /Parent 2 0 R >>")
+                .object("<< /Type /Page /Parent 2 0 R >>")
+                .object("<< /Type /Page /Parent 2 0 R >>")
+                // Unreferenced leftover: a scan would pick it
+                .object("<< /Type /Pages /Kids [] /Count 9 >>")
+                .xref(1);
+
+        assertEquals(3, AttachmentMetadata.pdfPageCount(pdf.buffer()));
+    }
+
+    @Test
+    void testPageCountFollowsIncrementalUpdates() {
+        // The page tree is rewritten by an update: the newest section wins (a scan would find the stale 5),
+        // /Root comes from the older trailer
+        Pdf pdf = new Pdf()
+                .object("<< /Type /Catalog /Pages 2 0 R >>")
+                .object("<< /Type /Pages /Kids [3 0 R] /Count 5 >>")
+                .object("<< /Type /Page /Parent 2 0 R >>")
+                .xref(1);
+        pdf.update(2, "<< /Type /Pages /Kids [3 0 R 4 0 R] /Count 2 >>")
+                .update(4, "<< /Type /Page /Parent 2 0 R >>")
+                .xrefUpdate();
+
+        assertEquals(2, AttachmentMetadata.pdfPageCount(pdf.buffer()));
+    }
+
+    @Test
+    void testPageCountWithoutClassicXrefScansPageTrees() {
+        // Cross-reference stream (not parsed): the page tree root has the largest /Count
+        String content = "%PDF-1.7\n"
+                + "1 0 obj << /Type /Pages /Kids [2 0 R 3 0 R] /Count 7 >> endobj\n"
+                + "2 0 obj << /Type /Pages /Parent 1 0 R /Count 4 >> endobj\n"
+                + "3 0 obj << /Type /Pages /Parent 1 0 R /Count 3 >> endobj\n"
+                + "startxref\n9\n%%EOF\n";
+
+        assertEquals(7, AttachmentMetadata.pdfPageCount(buffer(content.getBytes(StandardCharsets.ISO_8859_1))));
+    }
+
+    @Test
+    void testCorruptedPdfHasUnknownPageCount() {
+        String content = "%PDF-1.4\n1 0 obj << /Type /Catalog /Pages 2 0 R >> endobj\n"
+                + "xref\n0 2\n0000000000 65535 f \nXXXXXXXXXX 00000 n \ntrailer << /Root 1 0 R >>\n"
+                + "startxref\n99999999999999999999\n%%EOF\n";
+
+        assertNull(AttachmentMetadata.pdfPageCount(buffer(content.getBytes(StandardCharsets.ISO_8859_1))));
+        String xref = content.replace("99999999999999999999", String.valueOf(content.indexOf("xref")));
+        assertNull(AttachmentMetadata.pdfPageCount(buffer(xref.getBytes(StandardCharsets.ISO_8859_1))));
+        assertNull(AttachmentMetadata.pdfPageCount(buffer("%PDF-1.4\nstartxref\n3".getBytes(StandardCharsets.ISO_8859_1))));
+    }
+
+    @Test
+    void testCorruptedPdfStillGetsSizeAndType() throws IOException {
+        Path source = root.resolve("flyer.pdf");
+        Files.writeString(source, "%PDF-1.4\nxref\n0 x\ntrailer << /Root 1 0 R >>\nstartxref\n9\n%%EOF\n", StandardCharsets.ISO_8859_1);
+
+        AttachmentMetadata.AttachmentInfo info = metadata().info(source);
+
+        assertNotNull(info);
+        assertEquals("application/pdf", info.mimeType());
+        assertEquals("PDF", info.format());
+        assertNull(info.pages());
+        assertNull(info.previewUrl());
+    }
+
+    @Test
+    void testPreviewIsFirstJpegScaledDown() throws IOException {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(640, 400, BufferedImage.TYPE_INT_RGB), "jpg", jpeg);
+        Pdf pdf = new Pdf()
+                .object("<< /Type /Catalog /Pages 2 0 R >>")
+                .object("<< /Type /Pages /Kids [] /Count 0 >>")
+                .stream("<< /Type /XObject /Subtype /Image /Filter /DCTDecode /Length " + jpeg.size() + " >>", jpeg.toByteArray())
+                .xref(1);
+        AttachmentMetadata metadata = metadata();
+
+        String preview = metadata.pdfPreview(pdf.buffer(), "0123456789abcdef0123");
+
+        assertEquals("0123456789abcdef.jpg", preview);
+        BufferedImage image = ImageIO.read(metadata.previewsDir.resolve(preview).toFile());
+        assertEquals(320, image.getWidth());
+        assertEquals(200, image.getHeight());
+    }
+
+    @Test
+    void testPreviewIgnoresImagesAfterTheFirstWindow() throws IOException {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(640, 400, BufferedImage.TYPE_INT_RGB), "jpg", jpeg);
+        // Text-only first pages, the image is on the last one
+        Pdf pdf = new Pdf()
+                .object("<< /Type /Catalog /Pages 2 0 R >>")
+                .object("<< /Type /Pages /Kids [] /Count 0 >>")
+                .stream("<< /Length 300000 >>", new byte[300_000])
+                .stream("<< /Type /XObject /Subtype /Image /Filter /DCTDecode /Length " + jpeg.size() + " >>", jpeg.toByteArray())
+                .xref(1);
+
+        assertNull(metadata().pdfPreview(pdf.buffer(), "0123456789abcdef0123"));
+    }
+
+    @Test
+    void testSizeLabel() {
+        assertEquals("850 o", AttachmentMetadata.sizeLabel(850));
+        assertEquals("172 Ko", AttachmentMetadata.sizeLabel(172 * 1024));
+        assertEquals("1,7 Mo", AttachmentMetadata.sizeLabel(1782579));
+    }
+
+    private AttachmentMetadata metadata() {
+        SiteOutput siteOutput = new SiteOutput();
+        AttachmentMetadata metadata = new AttachmentMetadata();
+        metadata.file = root.resolve("attachment-metadata.json");
+        metadata.previewsDir = root.resolve("previews");
+        metadata.previewWidth = 320;
+        metadata.largeSizeKb = 1024;
+        metadata.contentHashes = new ContentHashes();
+        metadata.siteOutput = siteOutput;
+        return metadata;
+    }
+
+    private static ByteBuffer buffer(byte[] bytes) {
+        return ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Minimal PDF writer: numbered objects, classic cross-reference sections and trailers.
+     */
+    private static final class Pdf {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // Object number -> offset, of the section being written
+        private final List<int[]> section = new ArrayList<>();
+        private int objects;
+        private int previousXref = -1;
+
+        Pdf() {
+            write("%PDF-1.4\n");
+        }
+
+        Pdf object(String dictionary) {
+            return update(++objects, dictionary);
+        }
+
+        Pdf stream(String dictionary, byte[] data) {
+            section.add(new int[] {++objects, out.size()});
+            write(objects + " 0 obj\n" + dictionary + "\nstream\n");
+            out.writeBytes(data);
+            write("\nendstream\nendobj\n");
+            return this;
+        }
+
+        Pdf update(int number, String dictionary) {
+            objects = Math.max(objects, number);
+            section.add(new int[] {number, out.size()});
+            write(number + " 0 obj\n" + dictionary + "\nendobj\n");
+            return this;
+        }
+
+        Pdf xref(int root) {
+            int xref = out.size();
+            write("xref\n0 " + (section.size() + 1) + "\n0000000000 65535 f \n");
+            for (int[] entry : section) {
+                write(String.format("%010d 00000 n \n", entry[1]));
+            }
+            write("trailer\n<< /Size " + (objects + 1) + " /Root " + root + " 0 R >>\nstartxref\n" + xref + "\n%%EOF\n");
+            section.clear();
+            previousXref = xref;
+            return this;
+        }
+
+        Pdf xrefUpdate() {
+            int xref = out.size();
+            write("xref\n");
+            for (int[] entry : section) {
+                write(entry[0] + " 1\n" + String.format("%010d 00000 n \n", entry[1]));
+            }
+            write("trailer\n<< /Size " + (objects + 1) + " /Prev " + previousXref + " >>\nstartxref\n" + xref + "\n%%EOF\n");
+            section.clear();
+            previousXref = xref;
+            return this;
+        }
+
+        ByteBuffer buffer() {
+            return ByteBuffer.wrap(out.toByteArray());
+        }
+
+        private void write(String text) {
+            out.writeBytes(text.getBytes(StandardCharsets.ISO_8859_1));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package fr.tc11;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ContentHashes.
+ */
+class ContentHashesTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void testHashIsTheContentHash() throws IOException {
+        Path cover = Files.writeString(root.resolve("cover.jpg"), "jpeg");
+
+        assertEquals(SiteOutput.sha256(cover), new ContentHashes().hash(cover));
+    }
+
+    @Test
+    void testUnmodifiedFileIsNotReadAgain() throws IOException {
+        ContentHashes hashes = new ContentHashes();
+        Path cover = Files.writeString(root.resolve("cover.jpg"), "jpeg");
+        FileTime modified = Files.getLastModifiedTime(cover);
+        String before = hashes.hash(cover);
+
+        // Same size and modification time: the memoised hash is returned
+        Files.writeString(cover, "JPEG");
+        Files.setLastModifiedTime(cover, modified);
+
+        assertEquals(before, hashes.hash(cover));
+    }
+
+    @Test
+    void testHashIsRecomputedWhenTheFileIsModified() throws IOException {
+        ContentHashes hashes = new ContentHashes();
+        Path cover = Files.writeString(root.resolve("cover.jpg"), "jpeg");
+        String before = hashes.hash(cover);
+
+        Files.writeString(cover, "another jpeg");
+        Files.setLastModifiedTime(cover, FileTime.from(Instant.now().plusSeconds(60)));
+
+        assertNotEquals(before, hashes.hash(cover));
+        assertEquals(SiteOutput.sha256(cover), hashes.hash(cover));
+    }
+}
@@ -0,0 +1,103 @@
+package fr.tc11;
+
+import io.quarkus.runtime.StartupEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the caches of FilesViewHelpers (reflective accessors, classification
+ * per page), with the extension table configured directly instead of through CDI.
+ */
+class FilesViewHelpersCacheTest {
+
+    /** Minimal page: FilesViewHelpers reads its files through files() */
+    public record TestPage(List<String> files) {}
+
+    /** Page whose equals/hashCode must not be used by the cache */
+    public static final class OpaquePage {
+        public List<String> files() {
+            return List.of("/a/cover.jpg");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            throw new AssertionError("equals called");
+        }
+
+        @Override
+        public int hashCode() {
+            throw new AssertionError("hashCode called");
+        }
+    }
+
+    @BeforeEach
+    void configure() {
+        FilesViewHelpers.configure(config(List.of("jpg", "png"), List.of("pdf")));
+    }
+
+    @AfterEach
+    void reset() {
+        new FilesViewHelpers.CacheReset().onStart(new StartupEvent());
+    }
+
+    @Test
+    void testMissingMethodIsCachedAsAbsent() throws Throwable {
+        MethodHandle missing = FilesViewHelpers.accessor(TestPage.class, "getFiles");
+
+        assertSame(FilesViewHelpers.ABSENT, missing);
+        assertSame(missing, FilesViewHelpers.accessor(TestPage.class, "getFiles"));
+        // A page without front matter data: no cover property, the first image is used
+        assertEquals("/a/cover.jpg", FilesViewHelpers.cover(new TestPage(List.of("/a/cover.jpg")), "/fallback.png"));
+        assertEquals("/fallback.png", FilesViewHelpers.cover(new TestPage(List.of()), "/fallback.png"));
+    }
+
+    @Test
+    void testExistingMethodIsResolvedOnce() throws Throwable {
+        MethodHandle files = FilesViewHelpers.accessor(TestPage.class, "files");
+
+        assertNotSame(FilesViewHelpers.ABSENT, files);
+        assertSame(files, FilesViewHelpers.accessor(TestPage.class, "files"));
+        assertEquals(List.of("/a/b.pdf"), (Object) files.invokeExact((Object) new TestPage(List.of("/a/b.pdf"))));
+    }
+
+    @Test
+    void testClassificationIsKeyedByPageIdentity() {
+        TestPage page = new TestPage(List.of("/a/cover.jpg", "/a/flyer.pdf"));
+        TestPage equalPage = new TestPage(List.of("/a/cover.jpg", "/a/flyer.pdf"));
+        assertEquals(page, equalPage);
+
+        assertSame(FilesViewHelpers.images(page), FilesViewHelpers.images(page));
+        // Equal but distinct pages are classified separately
+        assertEquals(FilesViewHelpers.images(page), FilesViewHelpers.images(equalPage));
+        assertNotSame(FilesViewHelpers.images(page), FilesViewHelpers.images(equalPage));
+        // The page's own equals/hashCode are never called
+        assertEquals(List.of("/a/cover.jpg"), FilesViewHelpers.images(new OpaquePage()));
+    }
+
+    @Test
+    void testStartupClearsTheCaches() {
+        TestPage page = new TestPage(List.of("/a/cover.jpg", "/a/notes.txt"));
+        List<String> images = FilesViewHelpers.images(page);
+        assertEquals(List.of(), FilesViewHelpers.attachments(page));
+
+        // Live reload with new extensions: the page is classified again
+        new FilesViewHelpers.CacheReset().onStart(new StartupEvent());
+        FilesViewHelpers.configure(config(List.of("jpg"), List.of("pdf", "txt")));
+
+        assertNotSame(images, FilesViewHelpers.images(page));
+        assertEquals(List.of("/a/notes.txt"), FilesViewHelpers.attachments(page));
+    }
+
+    private static FilesViewHelpers.FilesConfig config(List<String> images, List<String> attachments) {
+        FilesViewHelpers.FilesConfig config = new FilesViewHelpers.FilesConfig();
+        config.imageExtensions = images;
+        config.attachmentExtensions = attachments;
+        return config;
+    }
+}
@@ -0,0 +1,96 @@
+package fr.tc11;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for FilesViewHelpers file classification.
+ */
+@QuarkusTest
+class FilesViewHelpersTest {
+
+    // Regexes used before the extension lookup table, kept as the compatibility reference
+    private static final Pattern ATTACH_RX = Pattern.compile(
+        ".*\\.(pdf|docx|xlsx|pptx|zip|rar|txt|csv|odt|ods|odp)$",
+        Pattern.CASE_INSENSITIVE
+    );
+    private static final Pattern IMAGE_RX = Pattern.compile(
+        ".*\\.(jpg|jpeg|png|gif|bmp|webp|svg)$",
+        Pattern.CASE_INSENSITIVE
+    );
+
+    private static final List<String> FILES = List.of(
+            "/posts/2024-12-07-ago/Bon pour pouvoir.pdf",
+            "/posts/2024-12-07-ago/Terre battue.png",
+            "/posts/2025-08-09-interclubs/interclubs-cover.jpg",
+            "/posts/2025-10-06-🚆-tc11-:-nouvelle-étape-franchie/dossier_presse_tc11.pdf",
+            "/posts/2025-10-06-🚆-tc11-:-nouvelle-étape-franchie/ChatGPT Image 6 oct. 2025, 15_04_14.png",
+            "/posts/2025-10-07-🎓-stages-adultes-2025-:-développez-vos-compétences-!/flyer_stages_adultes.PDF",
+            "/posts/photo.JPEG?v=2",
+            "/posts/logo.svg#icon",
+            "/posts/archive.tar.gz",
+            "/posts/notes.md",
+            "/posts/README",
+            "/posts/trailing.",
+            "/posts/.png",
+            "/posts/image.png.txt",
+            "/posts/document.pdf.jpg",
+            "C:\\posts\\scan.Tiff",
+            "C:\\posts\\scan.Gif",
+            "/posts/video.mp4"
+    );
+
+    /** Minimal page: FilesViewHelpers reads its files through files() */
+    public record TestPage(List<String> files) {}
+
+    @Test
+    void testClassificationMatchesRegexReference() {
+        TestPage page = new TestPage(FILES);
+
+        List<String> expectedImages = FILES.stream().filter(f -> IMAGE_RX.matcher(basename(f)).matches()).toList();
+        List<String> expectedAttachments = FILES.stream().filter(f -> ATTACH_RX.matcher(basename(f)).matches()).toList();
+
+        assertEquals(expectedImages, FilesViewHelpers.images(page));
+        assertEquals(expectedAttachments, FilesViewHelpers.attachments(page));
+    }
+
+    @Test
+    void testClassificationIsCaseInsensitive() {
+        TestPage page = new TestPage(List.of("/a/PHOTO.JpG", "/a/Flyer.Pdf"));
+
+        assertEquals(List.of("/a/PHOTO.JpG"), FilesViewHelpers.images(page));
+        assertEquals(List.of("/a/Flyer.Pdf"), FilesViewHelpers.attachments(page));
+    }
+
+    @Test
+    void testAccessorsShareClassification() {
+        TestPage page = new TestPage(List.of("/a/cover.jpg", "/a/gallery.png", "/a/flyer.pdf", "/a/index.md"));
+
+        assertEquals("/a/cover.jpg", FilesViewHelpers.firstImage(page));
+        assertTrue(FilesViewHelpers.hasImages(page));
+        assertEquals(2, FilesViewHelpers.imagesCount(page));
+        assertTrue(FilesViewHelpers.hasAttachments(page));
+        assertEquals(1, FilesViewHelpers.attachmentsCount(page));
+        assertSame(FilesViewHelpers.images(page), FilesViewHelpers.images(page));
+    }
+
+    @Test
+    void testPageWithoutFiles() {
+        assertFalse(FilesViewHelpers.hasImages(null));
+        assertNull(FilesViewHelpers.firstImage("not a page"));
+        assertEquals(0, FilesViewHelpers.attachmentsCount(new Object()));
+    }
+
+    // Same basename as FilesViewHelpers: without query, fragment and directories
+    private static String basename(String s) {
+        int q = s.indexOf('?'); if (q >= 0) s = s.substring(0, q);
+        int h = s.indexOf('#'); if (h >= 0) s = s.substring(0, h);
+        int slash = Math.max(s.lastIndexOf('/'), s.lastIndexOf('\\'));
+        return slash >= 0 ? s.substring(slash + 1) : s;
+    }
+}
@@ -0,0 +1,83 @@
+package fr.tc11;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for IconTemplateExtension, with the icons/test.json set of the test resources.
+ */
+class IconTemplateExtensionTest {
+
+    private final List<LogRecord> warnings = new CopyOnWriteArrayList<>();
+    private final Handler handler = new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+            if (record.getLevel().intValue() >= Level.WARNING.intValue()) {
+                warnings.add(record);
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        Logger.getLogger(IconTemplateExtension.class.getName()).addHandler(handler);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Logger.getLogger(IconTemplateExtension.class.getName()).removeHandler(handler);
+    }
+
+    @Test
+    void testKnownIconIsInlineSvg() {
+        assertEquals("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"1em\" height=\"1em\" viewBox=\"0 0 24 24\""
+                        + " aria-hidden=\"true\" class=\"icon\" style=\"vertical-align:-0.125em\">"
+                        + "<circle cx=\"12\" cy=\"12\" r=\"10\" fill=\"currentColor\"/></svg>",
+                IconTemplateExtension.svg("test:ball").getValue());
+    }
+
+    @Test
+    void testIconSizeOverridesSetSize() {
+        assertTrue(IconTemplateExtension.svg("test:wide").getValue().contains("viewBox=\"0 0 32 16\""));
+    }
+
+    @Test
+    void testIconIsRenderedOnce() {
+        assertSame(IconTemplateExtension.svg("test:ball"), IconTemplateExtension.svg("test:ball"));
+    }
+
+    @Test
+    void testUnknownIconIsEmptyWithOneWarning() {
+        assertEquals("", IconTemplateExtension.svg("test:not-extracted").getValue());
+        assertEquals("", IconTemplateExtension.svg("test:not-extracted").getValue());
+
+        assertEquals(1, warnings.size());
+        assertTrue(warnings.get(0).getMessage().contains("test:not-extracted")
+                || String.valueOf(warnings.get(0).getParameters()[0]).contains("test:not-extracted"));
+    }
+
+    @Test
+    void testUnknownSetOrMalformedIdIsEmpty() {
+        assertEquals("", IconTemplateExtension.svg("nosuchset:ball").getValue());
+        assertEquals("", IconTemplateExtension.svg("ball").getValue());
+        assertFalse(warnings.isEmpty());
+    }
+}
@@ -0,0 +1,114 @@
+package fr.tc11;
+
+import io.quarkus.runtime.ShutdownEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ImageMetadata on small generated PNG and JPEG images.
+ */
+class ImageMetadataTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void testDimensionsAndFormatOfAJpeg() throws IOException {
+        ImageMetadata.Info info = ImageMetadata.read(image("photo.jpg", 120, 80, Color.RED, Color.RED));
+
+        assertEquals(120, info.width());
+        assertEquals(80, info.height());
+        assertEquals("jpeg", info.format());
+        assertEquals("120 / 80", info.aspect());
+        assertTrue(info.color().matches("#[0-9a-f]{6}"), info.color());
+    }
+
+    @Test
+    void testDimensionsOnlyNeedTheHeader() throws IOException {
+        Path png = image("cover.png", 300, 200, Color.BLUE, Color.GREEN);
+        // Pixel data cut off: the header (IHDR) is enough for the dimensions
+        byte[] bytes = Files.readAllBytes(png);
+        Files.write(png, Arrays.copyOf(bytes, 64));
+
+        ImageMetadata.Info info = ImageMetadata.read(png);
+
+        assertEquals(300, info.width());
+        assertEquals(200, info.height());
+        assertEquals("png", info.format());
+        assertNull(info.color());
+    }
+
+    @Test
+    void testDominantColourIsTheAverageOfOpaquePixels() throws IOException {
+        // Left half opaque red, right half opaque blue
+        assertEquals("#7f007f", ImageMetadata.read(image("halves.png", 64, 64, Color.RED, Color.BLUE)).color());
+        // Right half transparent: only the red half counts
+        assertEquals("#ff0000", ImageMetadata.read(image("logo.png", 64, 64, Color.RED, new Color(0, 0, 255, 0))).color());
+        // Fully transparent: no colour
+        Color transparent = new Color(0, 0, 0, 0);
+        assertNull(ImageMetadata.read(image("empty.png", 64, 64, transparent, transparent)).color());
+    }
+
+    @Test
+    void testIndexIsReusedWhileTheContentIsUnchanged() throws IOException {
+        Path cover = image("cover.png", 64, 32, Color.RED, Color.RED);
+        ImageMetadata metadata = metadata();
+        assertEquals("#ff0000", metadata.info(cover).color());
+        metadata.onShutdown(new ShutdownEvent());
+
+        // Next build: same content, the image is not read again
+        Files.writeString(root.resolve("image-metadata.json"),
+                Files.readString(root.resolve("image-metadata.json")).replace("#ff0000", "#123456"));
+        assertEquals("#123456", metadata().info(cover).color());
+
+        // Modified image: the hash no longer matches
+        image("cover.png", 64, 32, Color.BLUE, Color.BLUE);
+        ImageMetadata.Info info = metadata().info(cover);
+        assertEquals("#0000ff", info.color());
+        assertEquals(64, info.width());
+    }
+
+    @Test
+    void testUnreadableFilesHaveNoMetadata() throws IOException {
+        ImageMetadata metadata = metadata();
+
+        assertNull(metadata.info(Files.writeString(root.resolve("notes.txt"), "not an image")));
+        assertNull(metadata.info(root.resolve("missing.png")));
+        assertNull(metadata.info(null));
+    }
+
+    private ImageMetadata metadata() {
+        ImageMetadata metadata = new ImageMetadata();
+        metadata.file = root.resolve("image-metadata.json");
+        metadata.contentHashes = new ContentHashes();
+        return metadata;
+    }
+
+    /** Writes an image whose left and right halves have the given colours */
+    private Path image(String name, int width, int height, Color left, Color right) throws IOException {
+        boolean png = name.endsWith(".png");
+        BufferedImage image = new BufferedImage(width, height, png ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setComposite(AlphaComposite.Src);
+        graphics.setColor(left);
+        graphics.fillRect(0, 0, width / 2, height);
+        graphics.setColor(right);
+        graphics.fillRect(width / 2, 0, width - width / 2, height);
+        graphics.dispose();
+        Path file = root.resolve(name);
+        ImageIO.write(image, png ? "png" : "jpg", file.toFile());
+        return file;
+    }
+}
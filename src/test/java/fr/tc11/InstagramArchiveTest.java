@@ -0,0 +1,117 @@
+package fr.tc11;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for InstagramArchive (merge of the Graph API syncs and watermark).
+ */
+class InstagramArchiveTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void testNeverSynchronisedAccountIsEmpty() {
+        InstagramArchive.Account account = archive(200).read("tc11assb");
+
+        assertTrue(account.posts().isEmpty());
+        assertFalse(account.hasWatermark());
+    }
+
+    @Test
+    void testFirstSyncSetsWatermark() {
+        InstagramArchive archive = archive(200);
+
+        archive.merge("tc11assb", "17900000000000002", List.of(
+                post("CLUB0000002", "2025-07-23T14:00:56Z", "Tournoi interne"),
+                post("CLUB0000001", "2025-07-01T09:00:00Z", null)));
+
+        InstagramArchive.Account account = archive(200).read("tc11assb");
+        assertTrue(account.hasWatermark());
+        assertEquals("17900000000000002", account.newestId());
+        assertEquals("2025-07-23T14:00:56Z", account.newestTimestamp());
+        assertEquals(2, account.posts().size());
+        // Every field survives the archive file
+        assertEquals(post("CLUB0000002", "2025-07-23T14:00:56Z", "Tournoi interne"), account.posts().get(0));
+    }
+
+    @Test
+    void testLaterSyncAddsNewerPostsAndMovesWatermark() {
+        InstagramArchive archive = archive(200);
+        archive.merge("tc11assb", "1", List.of(post("CLUB0000001", "2025-07-01T09:00:00Z", null)));
+
+        InstagramArchive.Account account = archive.merge("tc11assb", "2", List.of(
+                post("CLUB0000002", "2025-07-23T14:00:56Z", null),
+                // Already archived: not duplicated
+                post("CLUB0000001", "2025-07-01T09:00:00Z", null)));
+
+        assertEquals("2", account.newestId());
+        assertEquals("2025-07-23T14:00:56Z", account.newestTimestamp());
+        assertEquals(List.of("CLUB0000002", "CLUB0000001"), shortcodes(account));
+        assertEquals(account, archive.read("tc11assb"));
+    }
+
+    @Test
+    void testEmptySyncKeepsArchive() {
+        InstagramArchive archive = archive(200);
+        InstagramArchive.Account before = archive.merge("tc11assb", "1", List.of(post("CLUB0000001", "2025-07-01T09:00:00Z", null)));
+
+        assertEquals(before, archive.merge("tc11assb", null, List.of()));
+    }
+
+    @Test
+    void testArchiveIsLimitedToMaxPosts() {
+        InstagramArchive archive = archive(2);
+        archive.merge("tc11assb", "1", List.of(post("CLUB0000001", "2025-07-01T09:00:00Z", null)));
+        archive.merge("tc11assb", "2", List.of(post("CLUB0000002", "2025-07-10T09:00:00Z", null)));
+
+        InstagramArchive.Account account = archive.merge("tc11assb", "3", List.of(post("CLUB0000003", "2025-07-20T09:00:00Z", null)));
+
+        assertEquals(List.of("CLUB0000003", "CLUB0000002"), shortcodes(account));
+    }
+
+    @Test
+    void testAccountsAreArchivedSeparately() {
+        InstagramArchive archive = archive(200);
+        archive.merge("tc11assb", "1", List.of(post("CLUB0000001", "2025-07-01T09:00:00Z", null)));
+        archive.merge("tc11ecole", "5", List.of(new InstagramPost("https://www.instagram.com/p/SCHOOL00001/", "tc11ecole", "2025-07-10T08:00:00Z")));
+
+        assertEquals("1", archive.read("tc11assb").newestId());
+        assertEquals("5", archive.read("tc11ecole").newestId());
+        assertEquals(1, archive.read("tc11ecole").posts().size());
+    }
+
+    @Test
+    void testUnreadableArchiveStartsOver() throws IOException {
+        Files.writeString(root.resolve("instagram-archive.json"), "[not an archive");
+        InstagramArchive archive = archive(200);
+
+        assertTrue(archive.read("tc11assb").posts().isEmpty());
+        archive.merge("tc11assb", "1", List.of(post("CLUB0000001", "2025-07-01T09:00:00Z", null)));
+        assertEquals("1", archive.read("tc11assb").newestId());
+    }
+
+    private InstagramArchive archive(int maxPosts) {
+        InstagramArchive archive = new InstagramArchive();
+        archive.file = root.resolve("instagram-archive.json");
+        archive.maxPosts = maxPosts;
+        return archive;
+    }
+
+    private static InstagramPost post(String shortcode, String timestamp, String caption) {
+        return new InstagramPost("https://www.instagram.com/p/" + shortcode + "/", "tc11assb", timestamp,
+                "IMAGE", "https://scontent.cdninstagram.com/" + shortcode + ".jpg", null, caption);
+    }
+
+    private static List<String> shortcodes(InstagramArchive.Account account) {
+        return account.posts().stream().map(p -> p.url().replaceAll(".*/p/([^/]+)/", "$1")).toList();
+    }
+}
@@ -0,0 +1,117 @@
+package fr.tc11;
+
+import io.quarkus.qute.Engine;
+import io.quarkus.qute.HtmlEscaper;
+import io.quarkus.qute.NamespaceResolver;
+import io.quarkus.qute.ReflectionValueResolver;
+import io.quarkus.qute.TemplateLocator;
+import io.quarkus.qute.ValueResolver;
+import io.quarkus.qute.Variant;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for templates/partials/instagram-grid.html, rendered by a Qute engine with
+ * an instagram: namespace serving fixed posts.
+ */
+class InstagramGridTemplateTest {
+
+    private static final Path TEMPLATES = Path.of("templates");
+
+    private static final InstagramPost WITH_THUMBNAIL = new InstagramPost(
+            "https://www.instagram.com/p/DMc_B-kNmxf/", "tc11assb", "2025-07-23T14:00:56Z",
+            "IMAGE", "https://cdn.example/post.jpg", "/instagram/3f2a9c0d1e7b5a64.jpg", "Inter-clubs <2025> & finales");
+    private static final InstagramPost WITHOUT_THUMBNAIL = new InstagramPost(
+            "https://www.instagram.com/p/DK5HR3bgmSY/", "tc11assb", null);
+
+    @Test
+    void testPostsWithAThumbnailAreRenderedAsCards() {
+        String html = render("{#include partials/instagram-grid /}", List.of(WITH_THUMBNAIL));
+
+        assertTrue(html.contains("<a href=\"https://www.instagram.com/p/DMc_B-kNmxf/\" target=\"_blank\" rel=\"noopener\""), html);
+        assertTrue(html.contains("<img src=\"/instagram/3f2a9c0d1e7b5a64.jpg\" alt=\"Inter-clubs &lt;2025&gt; &amp; finales\""), html);
+        assertTrue(html.contains("<p class=\"p-4 text-sm text-slate-600 line-clamp-3\">Inter-clubs &lt;2025&gt; &amp; finales</p>"), html);
+        assertFalse(html.contains("instagram-media"), html);
+    }
+
+    @Test
+    void testPostsWithoutThumbnailFallBackToTheEmbed() {
+        String html = render("{#include partials/instagram-grid /}", List.of(WITH_THUMBNAIL, WITHOUT_THUMBNAIL));
+
+        assertEquals(1, count(html, "<img "));
+        assertEquals(1, count(html, "<blockquote class=\"instagram-media\""));
+        assertTrue(html.contains("data-instgrm-permalink=\"https://www.instagram.com/p/DK5HR3bgmSY/\""), html);
+    }
+
+    @Test
+    void testEmbedParameterForcesTheEmbedForEveryPost() {
+        String html = render("{#include partials/instagram-grid embed=true /}", List.of(WITH_THUMBNAIL, WITHOUT_THUMBNAIL));
+
+        assertEquals(0, count(html, "<img "));
+        assertEquals(2, count(html, "<blockquote class=\"instagram-media\""));
+        assertTrue(html.contains("data-instgrm-permalink=\"https://www.instagram.com/p/DMc_B-kNmxf/\""), html);
+    }
+
+    @Test
+    void testEmptyFeedRendersAnEmptyGrid() {
+        String html = render("{#include partials/instagram-grid /}", List.of());
+
+        assertTrue(html.contains("<div id=\"insta-grid\""), html);
+        assertFalse(html.contains("instagram.com"), html);
+    }
+
+    private static String render(String template, List<InstagramPost> posts) {
+        Engine engine = Engine.builder()
+                .addDefaults()
+                .addValueResolver(new ReflectionValueResolver())
+                // Method with a parameter, resolved by the generated resolvers in the application
+                .addValueResolver(ValueResolver.builder()
+                        .appliesTo(context -> context.getBase() instanceof InstagramPost && context.getName().equals("excerpt"))
+                        .resolveAsync(context -> context.evaluate(context.getParams().get(0))
+                                .thenApply(length -> ((InstagramPost) context.getBase()).excerpt((Integer) length)))
+                        .build())
+                .addNamespaceResolver(NamespaceResolver.builder("instagram")
+                        .resolve(context -> context.getName().equals("posts") ? posts : null)
+                        .build())
+                .addResultMapper(new HtmlEscaper(List.of(Variant.TEXT_HTML)))
+                .addLocator(InstagramGridTemplateTest::locate)
+                .build();
+        return engine.parse(template, Variant.forContentType(Variant.TEXT_HTML)).render();
+    }
+
+    private static Optional<TemplateLocator.TemplateLocation> locate(String id) {
+        Path file = TEMPLATES.resolve(id + ".html");
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        return Optional.of(new TemplateLocator.TemplateLocation() {
+            @Override
+            public Reader read() {
+                try {
+                    return Files.newBufferedReader(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public Optional<Variant> getVariant() {
+                return Optional.of(Variant.forContentType(Variant.TEXT_HTML));
+            }
+        });
+    }
+
+    private static int count(String html, String fragment) {
+        return (int) Pattern.compile(Pattern.quote(fragment)).matcher(html).results().count();
+    }
+}
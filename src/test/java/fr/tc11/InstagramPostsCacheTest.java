@@ -0,0 +1,166 @@
+package fr.tc11;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for InstagramPostsCache and its use by the fetcher: TTL hits, conditional
+ * revalidation and the stale fallback, against a local RSS Bridge stand-in.
+ */
+class InstagramPostsCacheTest {
+
+    private static final String ACCOUNT = "tc11assb";
+    private static final String ETAG = "\"v1\"";
+    private static final String LAST_MODIFIED = "Wed, 23 Jul 2025 14:00:56 GMT";
+
+    @TempDir
+    Path root;
+
+    private HttpServer server;
+    // If-None-Match header of each request received by the server ("null" when absent)
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+    private int status = 304;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            requests.add(String.valueOf(exchange.getRequestHeaders().getFirst("If-None-Match")));
+            exchange.getResponseHeaders().add("ETag", ETAG);
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void testEntryRoundTripsThroughTheFile() {
+        InstagramPost post = new InstagramPost("https://www.instagram.com/p/DMc_B-kNmxf/", ACCOUNT,
+                "2025-07-23T14:00:56Z", "IMAGE", "https://cdn.example/post.jpg", null, "Inter-clubs 2025");
+        InstagramPostsCache.Entry entry = new InstagramPostsCache.Entry(
+                List.of(post), InstagramPostsFetcher.SOURCE_GRAPH_API, 1753279256000L, ETAG, LAST_MODIFIED);
+        cache().write(ACCOUNT, entry);
+        cache().write("tc11ecole", entry(InstagramPostsFetcher.SOURCE_RSS_BRIDGE, Duration.ZERO));
+
+        assertEquals(entry, cache().read(ACCOUNT));
+        assertEquals(InstagramPostsFetcher.SOURCE_RSS_BRIDGE, cache().read("tc11ecole").source());
+        assertNull(cache().read("tc11tournoi"));
+    }
+
+    @Test
+    void testDisabledCacheIsNeitherReadNorWritten() {
+        InstagramPostsCache cache = cache();
+        cache.enabled = false;
+        cache.write(ACCOUNT, entry(InstagramPostsFetcher.SOURCE_RSS_BRIDGE, Duration.ZERO));
+
+        assertNull(cache.read(ACCOUNT));
+        assertFalse(Files.exists(cache.file));
+    }
+
+    @Test
+    void testFreshnessFollowsTheTtl() {
+        InstagramPostsCache cache = cache();
+
+        assertTrue(cache.isFresh(entry(InstagramPostsFetcher.SOURCE_RSS_BRIDGE, Duration.ofMinutes(59))));
+        assertFalse(cache.isFresh(entry(InstagramPostsFetcher.SOURCE_RSS_BRIDGE, Duration.ofMinutes(61))));
+    }
+
+    @Test
+    void testFreshEntryIsServedWithoutNetworkAccess() {
+        InstagramPostsFetcher fetcher = fetcher();
+        InstagramPostsCache.Entry cached = entry(InstagramPostsFetcher.SOURCE_RSS_BRIDGE, Duration.ofMinutes(10));
+        fetcher.postsCache.write(ACCOUNT, cached);
+
+        assertEquals(cached.posts(), fetcher.fetchAccountPosts(ACCOUNT));
+        assertTrue(requests.isEmpty());
+    }
+
+    @Test
+    void testStaleEntryIsRevalidatedWithAConditionalGet() {
+        InstagramPostsFetcher fetcher = fetcher();
+        InstagramPostsCache.Entry cached = entry(InstagramPostsFetcher.SOURCE_RSS_BRIDGE, Duration.ofHours(2));
+        fetcher.postsCache.write(ACCOUNT, cached);
+
+        assertEquals(cached.posts(), fetcher.fetchAccountPosts(ACCOUNT));
+
+        assertEquals(List.of(ETAG), requests);
+        // 304: the posts are reused and the entry is fresh again
+        InstagramPostsCache.Entry revalidated = fetcher.postsCache.read(ACCOUNT);
+        assertEquals(cached.posts(), revalidated.posts());
+        assertTrue(fetcher.postsCache.isFresh(revalidated));
+        assertEquals(LAST_MODIFIED, revalidated.lastModified());
+    }
+
+    @Test
+    void testStaleEntryIsUsedWhenEveryStrategyFails() {
+        status = 500;
+        InstagramPostsFetcher fetcher = fetcher();
+        InstagramPostsCache.Entry cached = entry(InstagramPostsFetcher.SOURCE_RSS_BRIDGE, Duration.ofHours(2));
+        fetcher.postsCache.write(ACCOUNT, cached);
+
+        assertEquals(cached.posts(), fetcher.fetchAccountPosts(ACCOUNT));
+
+        // Conditional GET, then the plain fetch of the chain
+        assertEquals(List.of(ETAG, "null"), requests);
+        assertEquals(cached.fetchedAt(), fetcher.postsCache.read(ACCOUNT).fetchedAt());
+    }
+
+    private InstagramPostsCache cache() {
+        InstagramPostsCache cache = new InstagramPostsCache();
+        cache.enabled = true;
+        cache.file = root.resolve("instagram-cache.json");
+        cache.ttlMinutes = 60;
+        return cache;
+    }
+
+    private InstagramPostsFetcher fetcher() {
+        InstagramPostsFetcher fetcher = new InstagramPostsFetcher();
+        fetcher.usernames = List.of(ACCOUNT);
+        fetcher.feedSize = 6;
+        fetcher.maxConcurrentPerHost = 2;
+        fetcher.concurrentFetch = false;
+        fetcher.rssBridgeUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/?u=%s";
+        fetcher.accessToken = Optional.empty();
+        fetcher.accountId = Optional.empty();
+        fetcher.postsCache = cache();
+        fetcher.health = new InstagramStrategyHealth();
+        fetcher.browserPool = new PlaywrightBrowserPool() {
+            @Override
+            public <T> T withContext(Object key, Browser.NewContextOptions options,
+                    Function<BrowserContext, T> action) {
+                throw new IllegalStateException("No browser in tests");
+            }
+        };
+        return fetcher;
+    }
+
+    private static InstagramPostsCache.Entry entry(String source, Duration age) {
+        return new InstagramPostsCache.Entry(
+                List.of(new InstagramPost("https://www.instagram.com/p/DMc_B-kNmxf/", ACCOUNT, "2025-07-23T14:00:56Z")),
+                source, System.currentTimeMillis() - age.toMillis(), ETAG, LAST_MODIFIED);
+    }
+}
@@ -0,0 +1,159 @@
+package fr.tc11;
+
+import fr.tc11.InstagramPostsFetcher.FetchResult;
+import fr.tc11.InstagramPostsFetcher.FetchStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the concurrent Instagram fetch, with stub strategies (no network),
+ * and for the bounded wait on the background fetch.
+ */
+class InstagramPostsFetcherConcurrencyTest {
+
+    private static final String ACCOUNT = "tc11assb";
+
+    // Strategies recorded as failed, and accounts whose browser lease was aborted
+    private final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+    private final List<Object> abortedLeases = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void testFirstNonEmptyResultInPriorityOrderWins() throws InterruptedException {
+        CountDownLatch loserCancelled = new CountDownLatch(1);
+
+        FetchResult result = fetcher(5).fetchConcurrently(ACCOUNT, List.of(
+                strategy("slow but first", 200, posts("SLOW0000001")),
+                strategy("fast", 0, posts("FAST0000001")),
+                blocking("never answers", loserCancelled)));
+
+        assertEquals("slow but first", result.source());
+        assertEquals("https://www.instagram.com/p/SLOW0000001/", result.posts().getFirst().url());
+        // The winner is known: the strategies still running are cancelled
+        assertTrue(loserCancelled.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(ACCOUNT), abortedLeases);
+        assertTrue(failures.isEmpty());
+    }
+
+    @Test
+    void testEmptyOrFailedStrategiesFallThrough() {
+        FetchResult result = fetcher(5).fetchConcurrently(ACCOUNT, List.of(
+                strategy("empty", 0, List.of()),
+                new FetchStrategy("failing", () -> {
+                    throw new IOException("HTTP 429");
+                }),
+                strategy("third", 100, posts("THIRD000001"))));
+
+        assertEquals("third", result.source());
+    }
+
+    @Test
+    void testDeadlineCancelsTheStrategiesStillRunning() throws InterruptedException {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        FetchResult result = fetcher(1).fetchConcurrently(ACCOUNT, List.of(
+                blocking("hanging", cancelled),
+                strategy("empty", 0, List.of())));
+
+        assertNull(result);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+        // Only the strategy still running at the deadline counts as failed
+        assertEquals(List.of("hanging"), failures);
+        assertEquals(List.of(ACCOUNT), abortedLeases);
+    }
+
+    @Test
+    void testEveryStrategyFailingReturnsNull() {
+        FetchResult result = fetcher(5).fetchConcurrently(ACCOUNT, List.of(
+                new FetchStrategy("failing", () -> {
+                    throw new IOException("HTTP 500");
+                }),
+                strategy("empty", 0, List.of())));
+
+        assertNull(result);
+        assertEquals(List.of(ACCOUNT), abortedLeases);
+    }
+
+    @Test
+    void testWaitForTheBackgroundFetchIsBounded() {
+        // init() is not called: the background fetch never completes
+        InstagramPostsFetcher fetcher = fetcher(5);
+        fetcher.usernames = List.of(ACCOUNT);
+        fetcher.awaitSeconds = 1;
+
+        long start = System.nanoTime();
+        List<String> posts = fetcher.getInstagramPosts();
+        long waited = System.nanoTime() - start;
+
+        assertFalse(posts.isEmpty());
+        assertEquals(fetcher.readFallbackPosts(), posts);
+        assertTrue(waited >= TimeUnit.MILLISECONDS.toNanos(900) && waited < TimeUnit.SECONDS.toNanos(5), waited + "ns");
+        assertEquals(posts, fetcher.getInstagramPosts(ACCOUNT));
+    }
+
+    @Test
+    void testFallbackFeedIsKeptAfterTheTimeout() {
+        InstagramPostsFetcher fetcher = fetcher(5);
+        fetcher.usernames = List.of(ACCOUNT);
+        fetcher.awaitSeconds = 1;
+        List<String> posts = fetcher.getInstagramPosts();
+
+        // The feed is completed with the fallback posts: later calls do not wait again
+        long start = System.nanoTime();
+        assertEquals(posts, fetcher.getInstagramPosts());
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    private InstagramPostsFetcher fetcher(int deadlineSeconds) {
+        InstagramPostsFetcher fetcher = new InstagramPostsFetcher();
+        fetcher.fetchDeadlineSeconds = deadlineSeconds;
+        fetcher.health = new InstagramStrategyHealth() {
+            @Override
+            public synchronized void recordFailure(String strategy, Duration latency) {
+                failures.add(strategy);
+            }
+        };
+        fetcher.browserPool = new PlaywrightBrowserPool() {
+            @Override
+            public void abortLease(Object key) {
+                abortedLeases.add(key);
+            }
+        };
+        return fetcher;
+    }
+
+    /** Strategy returning the given posts after a delay */
+    private static FetchStrategy strategy(String name, long delayMs, List<InstagramPost> posts) {
+        return new FetchStrategy(name, () -> {
+            Thread.sleep(delayMs);
+            return FetchResult.of(name, posts);
+        });
+    }
+
+    /** Strategy that never answers, counting down the latch once interrupted */
+    private static FetchStrategy blocking(String name, CountDownLatch cancelled) {
+        return new FetchStrategy(name, () -> {
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) {
+                cancelled.countDown();
+                throw e;
+            }
+            return FetchResult.of(name, List.of());
+        });
+    }
+
+    private static List<InstagramPost> posts(String shortcode) {
+        return List.of(new InstagramPost("https://www.instagram.com/p/" + shortcode + "/", ACCOUNT, null));
+    }
+}
@@ -26,6 +26,54 @@ class InstagramPostsFetcherTest {
         assertNotNull(posts);
     }
 
+    @Test
+    void testGetInstagramPostsForUnknownAccountIsEmpty() {
+        assertTrue(fetcher.getInstagramPosts("not-a-configured-account").isEmpty());
+    }
+
+    // ========== Multi-Account Merge Tests ==========
+
+    @Test
+    void testMergeFeedsOrdersByTimestampAndLimits() {
+        List<InstagramPost> club = List.of(
+                new InstagramPost("https://www.instagram.com/p/CLUB0000001/", "tc11assb", "2025-07-23T14:00:56Z"),
+                new InstagramPost("https://www.instagram.com/p/CLUB0000002/", "tc11assb", "2025-07-01T09:00:00Z"));
+        List<InstagramPost> school = List.of(
+                new InstagramPost("https://www.instagram.com/p/SCHOOL00001/", "tc11ecole", "2025-07-10T08:00:00Z"),
+                new InstagramPost("https://www.instagram.com/p/SCHOOL00002/", "tc11ecole", null));
+
+        List<InstagramPost> merged = InstagramPostsFetcher.mergeFeeds(List.of(club, school), 3);
+
+        assertEquals(3, merged.size());
+        assertEquals("https://www.instagram.com/p/CLUB0000001/", merged.get(0).url());
+        assertEquals("https://www.instagram.com/p/SCHOOL00001/", merged.get(1).url());
+        assertEquals("https://www.instagram.com/p/CLUB0000002/", merged.get(2).url());
+    }
+
+    @Test
+    void testMergeFeedsDeduplicatesByShortcode() {
+        // The same post can be shared by two accounts (collab post) or come with/without trailing slash
+        List<InstagramPost> club = List.of(
+                new InstagramPost("https://www.instagram.com/p/ABC123DEF45/", "tc11assb", "2025-07-23T14:00:56Z"));
+        List<InstagramPost> tournament = List.of(
+                new InstagramPost("https://www.instagram.com/p/ABC123DEF45", "tc11tournoi", null),
+                new InstagramPost("https://www.instagram.com/reel/XYZ789GHI01/", "tc11tournoi", null));
+
+        List<InstagramPost> merged = InstagramPostsFetcher.mergeFeeds(List.of(club, tournament), 6);
+
+        assertEquals(2, merged.size());
+        assertEquals("tc11assb", merged.get(0).account());
+        assertEquals("https://www.instagram.com/reel/XYZ789GHI01/", merged.get(1).url());
+    }
+
+    @Test
+    void testNormalizeTimestamp() {
+        assertEquals("2025-07-23T14:00:56Z", InstagramPostsFetcher.normalizeTimestamp("2025-07-23T14:00:56+00:00"));
+        assertEquals("2024-01-15T09:30:00Z", InstagramPostsFetcher.normalizeTimestamp("2024-01-15T10:30:00+0100"));
+        assertNull(InstagramPostsFetcher.normalizeTimestamp("yesterday"));
+        assertNull(InstagramPostsFetcher.normalizeTimestamp(null));
+    }
+
     // ========== Graph API Response Parsing Tests ==========
 
     @Test
@@ -162,6 +210,44 @@ class InstagramPostsFetcherTest {
         assertTrue(urls.isEmpty());
     }
 
+    @Test
+    void testParseMediaResponseKeepsMediaAndCaption() {
+        String jsonResponse = """
+            {
+                "data": [
+                    {
+                        "id": "12345",
+                        "permalink": "https://www.instagram.com/p/IMAGE12345/",
+                        "media_type": "IMAGE",
+                        "media_url": "https://scontent.cdninstagram.com/image.jpg",
+                        "caption": "Finale du tournoi interne",
+                        "timestamp": "2024-01-15T10:30:00+0000"
+                    },
+                    {
+                        "id": "67890",
+                        "permalink": "https://www.instagram.com/reel/REEL12345/",
+                        "media_type": "VIDEO",
+                        "media_url": "https://scontent.cdninstagram.com/video.mp4",
+                        "thumbnail_url": "https://scontent.cdninstagram.com/cover.jpg",
+                        "timestamp": "2024-01-14T15:45:00+0000"
+                    }
+                ]
+            }
+            """;
+
+        List<InstagramPost> posts = fetcher.testParseMediaResponsePosts(jsonResponse);
+
+        assertEquals(2, posts.size());
+        InstagramPost image = posts.get(0);
+        assertEquals("IMAGE", image.mediaType());
+        assertEquals("Finale du tournoi interne", image.caption());
+        assertEquals("https://scontent.cdninstagram.com/image.jpg", image.previewUrl());
+        InstagramPost video = posts.get(1);
+        assertEquals("VIDEO", video.mediaType());
+        assertNull(video.caption());
+        assertEquals("https://scontent.cdninstagram.com/cover.jpg", video.previewUrl());
+    }
+
     // ========== HTML Extraction Tests (for headless browser fallback) ==========
 
     @Test
@@ -251,6 +337,51 @@ class InstagramPostsFetcherTest {
         assertEquals(6, urls.size());
     }
 
+    // ========== Link Extraction Tests (for lean headless scraping) ==========
+
+    @Test
+    void testExtractPostUrlsFromHrefsKeepsDocumentOrder() {
+        List<String> hrefs = List.of(
+                "/reel/ABC123DEF45/",
+                "/tc11assb/",
+                "/p/XYZ789GHI01/?img_index=1",
+                "https://www.instagram.com/p/DMc_B-kNmxf/");
+
+        List<String> urls = fetcher.testExtractPostUrlsFromHrefs(hrefs);
+
+        assertEquals(List.of(
+                "https://www.instagram.com/p/ABC123DEF45",
+                "https://www.instagram.com/p/XYZ789GHI01",
+                "https://www.instagram.com/p/DMc_B-kNmxf"), urls);
+    }
+
+    @Test
+    void testExtractPostUrlsFromHrefsDeduplicatesAndLimits() {
+        List<String> hrefs = new java.util.ArrayList<>();
+        hrefs.add("/p/SHORTCODE00/");
+        hrefs.add(null);
+        for (int i = 0; i < 10; i++) {
+            hrefs.add(String.format("/p/SHORTCODE%02d/", i));
+        }
+
+        List<String> urls = fetcher.testExtractPostUrlsFromHrefs(hrefs);
+
+        assertEquals(6, urls.size());
+        assertEquals("https://www.instagram.com/p/SHORTCODE00", urls.get(0));
+        assertEquals("https://www.instagram.com/p/SHORTCODE05", urls.get(5));
+    }
+
+    @Test
+    void testIsBlockedResource() {
+        assertTrue(InstagramPostsFetcher.isBlockedResource("image", "https://scontent.cdninstagram.com/v/t51.jpg"));
+        assertTrue(InstagramPostsFetcher.isBlockedResource("media", "https://scontent.cdninstagram.com/v/t50.mp4"));
+        assertTrue(InstagramPostsFetcher.isBlockedResource("font", "https://static.cdninstagram.com/rsrc.php/font.woff2"));
+        assertTrue(InstagramPostsFetcher.isBlockedResource("script", "https://www.googletagmanager.com/gtag/js"));
+        assertFalse(InstagramPostsFetcher.isBlockedResource("script", "https://static.cdninstagram.com/rsrc.php/v3/app.js"));
+        assertFalse(InstagramPostsFetcher.isBlockedResource("document", "https://www.instagram.com/tc11assb/"));
+        assertFalse(InstagramPostsFetcher.isBlockedResource("xhr", "https://www.instagram.com/api/graphql"));
+    }
+
     // ========== RSS Bridge Response Parsing Tests ==========
 
     @Test
@@ -286,6 +417,30 @@ class InstagramPostsFetcherTest {
         assertEquals("https://www.instagram.com/p/DK5HR3bgmSY/", urls.get(1));
     }
 
+    @Test
+    void testParseRssBridgeResponseKeepsImageAndCaption() {
+        String jsonResponse = """
+            {
+                "items": [
+                    {
+                        "id": "https://www.instagram.com/p/DMc_B-kNmxf/",
+                        "url": "https://www.instagram.com/p/DMc_B-kNmxf/",
+                        "title": "Retour sur notre belle fin de saison !",
+                        "image": "https://scontent.cdninstagram.com/season.jpg",
+                        "date_modified": "2025-07-23T14:00:56+00:00"
+                    }
+                ]
+            }
+            """;
+
+        List<InstagramPost> posts = fetcher.testParseRssBridgeResponsePosts(jsonResponse);
+
+        assertEquals(1, posts.size());
+        assertEquals("Retour sur notre belle fin de saison !", posts.get(0).caption());
+        assertEquals("https://scontent.cdninstagram.com/season.jpg", posts.get(0).previewUrl());
+        assertEquals("2025-07-23T14:00:56Z", posts.get(0).timestamp());
+    }
+
     @Test
     void testParseRssBridgeResponseWithIdOnly() {
         // RSS Bridge response where URL is only in the id field
@@ -357,4 +512,66 @@ class InstagramPostsFetcherTest {
         // Should be limited to MAX_POSTS (6)
         assertEquals(6, urls.size());
     }
+
+    @Test
+    void testParseRssBridgeResponseStopsReadingAfterFeedSize() {
+        // Items after the 6th are never read: a truncated response still yields the first posts
+        StringBuilder json = new StringBuilder("""
+            {
+                "version": "https://jsonfeed.org/version/1",
+                "items": [
+            """);
+        for (int i = 0; i < 6; i++) {
+            json.append(String.format("""
+                {"url": "https://www.instagram.com/p/SHORTCODE%02d/"},
+            """, i));
+        }
+        json.append("{\"url\": \"https://www.instagram.com/p/TRUNCA");
+
+        List<String> urls = fetcher.testParseRssBridgeResponse(json.toString());
+
+        assertEquals(6, urls.size());
+        assertEquals("https://www.instagram.com/p/SHORTCODE05/", urls.get(5));
+    }
+
+    @Test
+    void testParseMediaResponseSkipsFieldsBeforeData() {
+        String jsonResponse = """
+            {
+                "paging": {"cursors": {"before": "QVFI", "after": "QVFJ"}, "next": "https://graph.facebook.com/next"},
+                "data": [
+                    {"id": "1", "permalink": "https://www.instagram.com/p/AFTERPAGING/"}
+                ]
+            }
+            """;
+
+        List<String> urls = fetcher.testParseMediaResponse(jsonResponse);
+
+        assertEquals(List.of("https://www.instagram.com/p/AFTERPAGING/"), urls);
+    }
+
+    @Test
+    void testParseMediaPageCursor() {
+        String jsonResponse = """
+            {
+                "data": [
+                    {"id": "1", "permalink": "https://www.instagram.com/p/PAGEONE001/"}
+                ],
+                "paging": {
+                    "cursors": {"before": "QVFIUmx1", "after": "QVFIUmxz"},
+                    "next": "https://graph.facebook.com/v21.0/123/media?after=QVFIUmxz"
+                }
+            }
+            """;
+        assertEquals("QVFIUmxz", fetcher.testParseMediaPageCursor(jsonResponse));
+
+        // Last page: cursors are still returned, but without 'next' there is nothing to follow
+        String lastPage = """
+            {
+                "data": [],
+                "paging": {"cursors": {"before": "QVFIUmx1", "after": "QVFIUmxz"}}
+            }
+            """;
+        assertNull(fetcher.testParseMediaPageCursor(lastPage));
+    }
 }
@@ -0,0 +1,126 @@
+package fr.tc11;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for InstagramStrategyHealth (circuit breaker and strategy order).
+ */
+class InstagramStrategyHealthTest {
+
+    private static final List<String> STRATEGIES = List.of("rss-bridge", "graph-api", "headless");
+
+    @TempDir
+    Path root;
+
+    @Test
+    void testCircuitOpensAfterConsecutiveFailures() {
+        InstagramStrategyHealth health = health(120);
+
+        health.recordFailure("rss-bridge", Duration.ofSeconds(10));
+        health.recordFailure("rss-bridge", Duration.ofSeconds(10));
+        assertTrue(health.allows("rss-bridge"));
+        health.recordFailure("rss-bridge", Duration.ofSeconds(10));
+
+        assertFalse(health.allows("rss-bridge"));
+        assertEquals(List.of("graph-api", "headless"), health.order(STRATEGIES, Function.identity()));
+    }
+
+    @Test
+    void testSuccessResetsFailures() {
+        InstagramStrategyHealth health = health(120);
+
+        health.recordFailure("rss-bridge", Duration.ofSeconds(10));
+        health.recordFailure("rss-bridge", Duration.ofSeconds(10));
+        health.recordSuccess("rss-bridge", Duration.ofSeconds(1));
+        health.recordFailure("rss-bridge", Duration.ofSeconds(10));
+        health.recordFailure("rss-bridge", Duration.ofSeconds(10));
+
+        assertTrue(health.allows("rss-bridge"));
+    }
+
+    @Test
+    void testStrategyIsRetriedAfterCoolDown() {
+        // No cool-down: the circuit is half-open right away
+        InstagramStrategyHealth health = health(0);
+
+        for (int i = 0; i < 3; i++) {
+            health.recordFailure("headless", Duration.ofSeconds(30));
+        }
+
+        assertTrue(health.allows("headless"));
+        // Still failing: tried last
+        assertEquals(List.of("rss-bridge", "graph-api", "headless"), health.order(List.of("headless", "rss-bridge", "graph-api"), Function.identity()));
+    }
+
+    @Test
+    void testHealthyStrategiesOrderedByLatencyThenPriority() {
+        InstagramStrategyHealth health = health(120);
+
+        health.recordSuccess("rss-bridge", Duration.ofMillis(4000));
+        health.recordSuccess("graph-api", Duration.ofMillis(300));
+        health.recordFailure("headless", Duration.ofMillis(100));
+
+        assertEquals(List.of("graph-api", "rss-bridge", "headless"), health.order(STRATEGIES, Function.identity()));
+        // Never measured: sorts first, the others keep their order
+        assertEquals(List.of("custom", "graph-api", "rss-bridge", "headless"),
+                health.order(List.of("rss-bridge", "graph-api", "custom", "headless"), Function.identity()));
+    }
+
+    @Test
+    void testAverageLatencyIsSmoothed() {
+        InstagramStrategyHealth.State state = new InstagramStrategyHealth.State(0, 0, 0, 0);
+
+        assertEquals(1000, state.averageLatencyMs(1000));
+        assertEquals(1600, new InstagramStrategyHealth.State(0, 0, 1000, 0).averageLatencyMs(3000));
+    }
+
+    @Test
+    void testStateIsKeptAcrossBuilds() {
+        InstagramStrategyHealth health = health(120);
+        for (int i = 0; i < 3; i++) {
+            health.recordFailure("rss-bridge", Duration.ofSeconds(10));
+        }
+
+        assertFalse(health(120).allows("rss-bridge"));
+        assertTrue(health(120).allows("graph-api"));
+    }
+
+    @Test
+    void testUnreadableStateIsIgnored() throws IOException {
+        Files.writeString(root.resolve("instagram-health.json"), "{\"rss-bridge\": ");
+
+        assertTrue(health(120).allows("rss-bridge"));
+    }
+
+    @Test
+    void testDisabledAllowsEverythingInOrder() {
+        InstagramStrategyHealth health = health(120);
+        health.enabled = false;
+        for (int i = 0; i < 3; i++) {
+            health.recordFailure("rss-bridge", Duration.ofSeconds(10));
+        }
+
+        assertTrue(health.allows("rss-bridge"));
+        assertEquals(STRATEGIES, health.order(STRATEGIES, Function.identity()));
+        assertFalse(Files.exists(root.resolve("instagram-health.json")));
+    }
+
+    private InstagramStrategyHealth health(long coolDownMinutes) {
+        InstagramStrategyHealth health = new InstagramStrategyHealth();
+        health.enabled = true;
+        health.file = root.resolve("instagram-health.json");
+        health.failureThreshold = 3;
+        health.coolDownMinutes = coolDownMinutes;
+        return health;
+    }
+}
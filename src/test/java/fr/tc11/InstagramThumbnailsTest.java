@@ -0,0 +1,137 @@
+package fr.tc11;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for InstagramThumbnails, with thumbnails served by a local HTTP server.
+ */
+class InstagramThumbnailsTest {
+
+    private static final String POST_URL = "https://www.instagram.com/p/DMc_B-kNmxf/";
+
+    @TempDir
+    Path root;
+
+    private HttpServer server;
+    private final AtomicInteger downloads = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        byte[] png = png(1200, 800);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/cover.png", exchange -> {
+            downloads.incrementAndGet();
+            exchange.getResponseHeaders().add("Content-Type", "image/png");
+            exchange.sendResponseHeaders(200, png.length);
+            exchange.getResponseBody().write(png);
+            exchange.close();
+        });
+        server.createContext("/missing.png", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void testThumbnailIsScaledAndNamedAfterItsContent() throws IOException {
+        InstagramPost post = localise(thumbnails(true), post(url("/cover.png")));
+
+        assertTrue(post.thumbnailUrl().matches("/instagram/[0-9a-f]{16}\\.jpg"), post.thumbnailUrl());
+        Path file = root.resolve("thumbnails").resolve(post.thumbnailUrl().substring("/instagram/".length()));
+        assertEquals(SiteOutput.sha256(file).substring(0, 16) + ".jpg", file.getFileName().toString());
+        BufferedImage image = ImageIO.read(file.toFile());
+        assertEquals(640, image.getWidth());
+        assertEquals(427, image.getHeight());
+        // Everything else is kept
+        assertEquals(POST_URL, post.url());
+        assertEquals(url("/cover.png"), post.mediaUrl());
+    }
+
+    @Test
+    void testKnownPostIsNotDownloadedAgain() {
+        InstagramPost first = localise(thumbnails(true), post(url("/cover.png")));
+        // Next build: the CDN URL changed (signed URLs expire), the shortcode did not
+        InstagramPost second = localise(thumbnails(true), post(url("/cover.png?expires=2")));
+
+        assertEquals(first.thumbnailUrl(), second.thumbnailUrl());
+        assertEquals(1, downloads.get());
+    }
+
+    @Test
+    void testFailedDownloadKeepsTheCdnUrl() {
+        InstagramPost post = post(url("/missing.png"));
+
+        assertEquals(post, localise(thumbnails(true), post));
+    }
+
+    @Test
+    void testNothingIsDownloadedOutsideGeneration() {
+        List<InstagramPost> posts = List.of(post(url("/cover.png")));
+
+        assertSame(posts, thumbnails(false).localise(posts));
+        assertEquals(0, downloads.get());
+        assertFalse(Files.exists(root.resolve("thumbnails")));
+    }
+
+    private InstagramThumbnails thumbnails(boolean generate) {
+        SiteOutput siteOutput = new SiteOutput();
+        siteOutput.generate = generate;
+        siteOutput.outputDir = root.resolve("site");
+        InstagramThumbnails thumbnails = new InstagramThumbnails();
+        thumbnails.enabled = true;
+        thumbnails.dir = root.resolve("thumbnails");
+        thumbnails.width = 640;
+        thumbnails.quality = 0.8f;
+        thumbnails.parallelism = 2;
+        thumbnails.siteOutput = siteOutput;
+        return thumbnails;
+    }
+
+    private static InstagramPost localise(InstagramThumbnails thumbnails, InstagramPost post) {
+        return thumbnails.localise(List.of(post)).getFirst();
+    }
+
+    private static InstagramPost post(String mediaUrl) {
+        return new InstagramPost(POST_URL, "tc11assb", "2025-07-23T14:00:56Z", "IMAGE", mediaUrl, null, "Inter-clubs");
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(0x1e, 0x6f, 0x3a));
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        return png.toByteArray();
+    }
+}
@@ -0,0 +1,108 @@
+package fr.tc11;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for Installations (data file and static map preview).
+ */
+class InstallationsTest {
+
+    private static final List<Installations.Installation> SITES = List.of(
+            site("Candie", 48.8513896, 2.3776389, 3),
+            site("C.S. Alain Mimoun", 48.8382777, 2.4081032, 4),
+            site("Bercy", 48.8348, 2.3830, 1),
+            // Close to Mimoun: its label pushes Mimoun's down
+            site("Jules Ladoumègue & <Annexe>", 48.8390, 2.4070, 2));
+
+    @TempDir
+    Path root;
+
+    @Test
+    void testPreviewMatchesGoldenSvg() throws IOException {
+        assertEquals(golden("installations-preview.svg"), Installations.renderPreview(SITES));
+    }
+
+    @Test
+    void testPreviewKeepsMarkersInsideTheMap() {
+        String svg = Installations.renderPreview(SITES);
+
+        assertTrue(svg.contains("<circle cx=\"112.0\" cy=\"38.1\""), "westernmost and northernmost marker");
+        assertTrue(svg.contains("<circle cx=\"368.0\" cy=\"205.5\""), "easternmost marker");
+        assertTrue(svg.contains("<line x1=\"368.0\" y1=\"205.5\" x2=\"380.0\" y2=\"210.3\""), "leader line of the moved label");
+        assertTrue(svg.contains(">Jules Ladoumègue &amp; &lt;Annexe&gt;</text>"));
+    }
+
+    @Test
+    void testPreviewOfNoInstallationIsEmpty() {
+        assertEquals("", Installations.renderPreview(List.of()));
+    }
+
+    @Test
+    void testListReadsDataFile() throws IOException {
+        Path file = root.resolve("installations.json");
+        Files.writeString(file, """
+                [{"name": "Candie", "coords": [48.8513896, 2.3776389], "terrains": 3,
+                  "surface": "gazon synthétique", "url": "https://example.org/candie", "image": "candie.jpg"}]
+                """);
+        Installations installations = installations(file);
+
+        List<Installations.Installation> list = installations.list();
+
+        assertEquals(1, list.size());
+        assertEquals("Candie", list.get(0).name());
+        assertEquals(48.8513896, list.get(0).lat());
+        assertEquals(2.3776389, list.get(0).lng());
+        assertEquals(3, list.get(0).terrains());
+    }
+
+    @Test
+    void testMissingOrInvalidDataFileGivesNoInstallation() throws IOException {
+        assertTrue(installations(root.resolve("missing.json")).list().isEmpty());
+        assertEquals("", installations(root.resolve("missing.json")).preview());
+
+        Path file = Files.writeString(root.resolve("installations.json"), "{not json");
+        assertTrue(installations(file).list().isEmpty());
+        assertEquals("[]", installations(file).json());
+    }
+
+    @Test
+    void testJsonCannotCloseTheScriptElement() throws IOException {
+        Path file = Files.writeString(root.resolve("installations.json"), """
+                [{"name": "</script><script>alert(1)</script>", "coords": [48.85, 2.39], "terrains": 1,
+                  "surface": "terre battue", "url": "https://example.org", "image": "site.jpg"}]
+                """);
+
+        String json = installations(file).json();
+
+        assertFalse(json.contains("<"), json);
+        assertTrue(json.contains("\"name\":\"\\u003c/script>\\u003cscript>alert(1)\\u003c/script>\""), json);
+    }
+
+    private static Installations installations(Path file) {
+        Installations installations = new Installations();
+        installations.file = file;
+        return installations;
+    }
+
+    private static Installations.Installation site(String name, double lat, double lng, int terrains) {
+        return new Installations.Installation(name, new double[] {lat, lng}, terrains, "béton poreux",
+                "https://example.org/" + terrains, "site.jpg");
+    }
+
+    private static String golden(String name) throws IOException {
+        try (InputStream input = InstallationsTest.class.getResourceAsStream("/" + name)) {
+            assertNotNull(input, name);
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8).strip();
+        }
+    }
+}
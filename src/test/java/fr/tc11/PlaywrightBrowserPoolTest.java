@@ -0,0 +1,243 @@
+package fr.tc11;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.CDPSession;
+import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.TimeoutError;
+import io.quarkus.runtime.LaunchMode;
+import io.quarkus.runtime.ShutdownEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for PlaywrightBrowserPool leases, aborts and live reload, against fake
+ * Playwright objects (no browser is started).
+ */
+class PlaywrightBrowserPoolTest {
+
+    private final LaunchMode launchMode = LaunchMode.current();
+    // Calls made on the fakes, e.g. "BrowserContext.close"
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void restoreLaunchMode() {
+        LaunchMode.set(launchMode);
+    }
+
+    @Test
+    void testLeasesAreSerialised() throws Exception {
+        PlaywrightBrowserPool pool = pool();
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        CountDownLatch firstLeased = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> pool.withContext("first", null, context -> {
+                maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                firstLeased.countDown();
+                await(release);
+                inside.decrementAndGet();
+                return "first";
+            }));
+            assertTrue(firstLeased.await(5, TimeUnit.SECONDS));
+            Future<String> second = executor.submit(() -> pool.withContext("second", null, context -> {
+                maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                inside.decrementAndGet();
+                return "second";
+            }));
+
+            Thread.sleep(100);
+            assertFalse(second.isDone());
+            release.countDown();
+
+            assertEquals("first", first.get(5, TimeUnit.SECONDS));
+            assertEquals("second", second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, maxInside.get());
+            assertEquals(2, Collections.frequency(calls, "BrowserContext.close"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testAbortedLeaseStopsAtTheNextSlice() throws Exception {
+        PlaywrightBrowserPool pool = pool();
+        AtomicInteger slices = new AtomicInteger();
+
+        assertThrows(CancellationException.class, () -> pool.withContext("account", null, context -> {
+            return pool.await("account", 10000, timeout -> {
+                if (slices.incrementAndGet() == 3) {
+                    // Another thread gives up on this lease while it waits
+                    Thread other = new Thread(() -> pool.abortLease("account"));
+                    other.start();
+                    join(other);
+                }
+                throw new TimeoutError("slice elapsed");
+            });
+        }));
+
+        assertEquals(3, slices.get());
+        assertEquals(1, Collections.frequency(calls, "BrowserContext.close"));
+        assertFalse(calls.contains("Browser.close"));
+    }
+
+    @Test
+    void testAbortOnlyStopsItsOwnLease() throws Exception {
+        PlaywrightBrowserPool pool = pool();
+
+        boolean done = pool.withContext("account", null, context -> {
+            pool.abortLease("another account");
+            return pool.await("account", 1000, timeout -> {});
+        });
+
+        assertTrue(done);
+        // No lease in progress: nothing to abort
+        pool.abortLease("account");
+        boolean next = pool.withContext("account", null, context -> pool.await("account", 1000, timeout -> {}));
+        assertTrue(next);
+    }
+
+    @Test
+    void testAwaitGivesUpAfterTheOverallTimeout() throws Exception {
+        PlaywrightBrowserPool pool = pool();
+        List<Double> slices = new ArrayList<>();
+
+        boolean done = pool.withContext("account", null, context -> pool.await("account", 50, timeout -> {
+            slices.add(timeout);
+            throw new TimeoutError("slice elapsed");
+        }));
+
+        assertFalse(done);
+        assertFalse(slices.isEmpty());
+        assertTrue(slices.stream().allMatch(timeout -> timeout <= 50), slices.toString());
+    }
+
+    @Test
+    void testLiveReloadKeepsTheBrowserAndReconnects() throws Exception {
+        LaunchMode.set(LaunchMode.DEVELOPMENT);
+        PlaywrightBrowserPool pool = pool();
+        pool.withContext("account", null, context -> null);
+        assertTrue(pool.connectedOverCdp);
+
+        // Live reload
+        pool.onShutdown(new ShutdownEvent() {
+            @Override
+            public boolean isStandardShutdown() {
+                return false;
+            }
+        });
+
+        assertEquals(1, Collections.frequency(calls, "Playwright.close"));
+        assertFalse(calls.contains("CDPSession.send"));
+        assertFalse(calls.contains("Browser.close"));
+
+        // The next instance reconnects to the running browser instead of launching one
+        PlaywrightBrowserPool reloaded = pool();
+        reloaded.withContext("account", null, context -> null);
+
+        assertEquals(2, Collections.frequency(calls, "BrowserType.connectOverCDP"));
+        assertFalse(calls.contains("BrowserType.launch"));
+    }
+
+    @Test
+    void testStandardShutdownClosesTheDevBrowser() throws Exception {
+        LaunchMode.set(LaunchMode.DEVELOPMENT);
+        PlaywrightBrowserPool pool = pool();
+        pool.withContext("account", null, context -> null);
+
+        pool.onShutdown(new ShutdownEvent());
+
+        assertTrue(calls.contains("CDPSession.send"));
+        assertEquals(1, Collections.frequency(calls, "Playwright.close"));
+        assertNull(pool.browser);
+    }
+
+    @Test
+    void testLaunchesABrowserOutsideDevMode() throws Exception {
+        LaunchMode.set(LaunchMode.NORMAL);
+        PlaywrightBrowserPool pool = pool();
+        pool.withContext("account", null, context -> null);
+
+        assertFalse(pool.connectedOverCdp);
+        assertTrue(calls.contains("BrowserType.launch"));
+        assertFalse(calls.contains("BrowserType.connectOverCDP"));
+    }
+
+    private PlaywrightBrowserPool pool() {
+        PlaywrightBrowserPool pool = new PlaywrightBrowserPool();
+        pool.devDebuggingPort = 9223;
+        pool.playwrightFactory = () -> {
+            Browser browser = fake(Browser.class);
+            BrowserType chromium = fake(BrowserType.class, browser);
+            return fake(Playwright.class, chromium);
+        };
+        return pool;
+    }
+
+    /**
+     * Fake implementing the interface: calls are recorded in {@link #calls}, methods
+     * returning Browser, BrowserType, BrowserContext or CDPSession return a fake
+     * (or the given object), the others return their type default.
+     */
+    private <T> T fake(Class<T> type, Object... returned) {
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return switch (method.getName()) {
+                            case "equals" -> proxy == args[0];
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            default -> type.getSimpleName();
+                        };
+                    }
+                    calls.add(type.getSimpleName() + "." + method.getName());
+                    Class<?> result = method.getReturnType();
+                    for (Object object : returned) {
+                        if (result.isInstance(object)) {
+                            return object;
+                        }
+                    }
+                    if (result == BrowserContext.class || result == CDPSession.class
+                            || result == Browser.class || result == BrowserType.class) {
+                        return fake(result);
+                    }
+                    if (result == boolean.class) {
+                        // Browser.isConnected()
+                        return true;
+                    }
+                    return result.isPrimitive() && result != void.class ? 0 : null;
+                }));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void join(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
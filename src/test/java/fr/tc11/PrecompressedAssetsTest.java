@@ -0,0 +1,144 @@
+package fr.tc11;
+
+import io.quarkus.runtime.ShutdownEvent;
+import jakarta.annotation.Priority;
+import jakarta.interceptor.Interceptor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the shutdown chain of the site generation: asset fingerprints, then
+ * the copy of the build files into the site, then the pre-compressed siblings.
+ */
+class PrecompressedAssetsTest {
+
+    // Default priority of an observer without @Priority
+    private static final int DEFAULT_PRIORITY = Interceptor.Priority.APPLICATION + 500;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void testShutdownObserversRunInPipelineOrder() throws Exception {
+        assertTrue(priority(AssetFingerprints.class) < priority(SiteOutput.class));
+        assertTrue(priority(SiteOutput.class) < priority(PrecompressedAssets.class));
+    }
+
+    @Test
+    void testShutdownChainWritesHashedAssetsAndCompressedSiblings() throws Exception {
+        String css = "body { color: #0f172a; }\n".repeat(100);
+        String html = "<p>Tennis pour tous et toutes</p>\n".repeat(100);
+        Files.createDirectories(root.resolve("public"));
+        Files.writeString(root.resolve("public/style.css"), css);
+        // Page rendered by Roq before the application shuts down
+        Path site = Files.createDirectories(root.resolve("site"));
+        Files.writeString(site.resolve("index.html"), html);
+        Files.writeString(site.resolve("tiny.html"), "<p>ok</p>");
+
+        SiteOutput siteOutput = new SiteOutput();
+        siteOutput.generate = true;
+        siteOutput.outputDir = site;
+        SiteFiles siteFiles = new SiteFiles();
+        siteFiles.contentDir = root.resolve("content");
+        siteFiles.publicDir = root.resolve("public");
+        AssetFingerprints fingerprints = new AssetFingerprints();
+        fingerprints.enabled = true;
+        fingerprints.dir = root.resolve("asset-fingerprints");
+        fingerprints.headersFile = "_headers";
+        fingerprints.manifestFile = "asset-manifest.json";
+        fingerprints.immutablePaths = List.of("/img/*");
+        fingerprints.siteOutput = siteOutput;
+        fingerprints.siteFiles = siteFiles;
+        fingerprints.contentHashes = new ContentHashes();
+        PrecompressedAssets compressed = new PrecompressedAssets();
+        compressed.enabled = true;
+        compressed.dir = root.resolve("compressed");
+        compressed.extensions = List.of("html", "css", "json");
+        compressed.minSize = 1024;
+        compressed.brotliCommand = root.resolve("no-brotli").toString();
+        compressed.siteOutput = siteOutput;
+
+        String url = fingerprints.url("style.css");
+        assertTrue(url.matches("/style\\.[0-9a-f]{8}\\.css"), url);
+
+        // Run the observers the way the container orders them
+        List<Map.Entry<Integer, Runnable>> observers = new ArrayList<>(List.of(
+                Map.entry(priority(PrecompressedAssets.class), () -> compressed.onShutdown(new ShutdownEvent())),
+                Map.entry(priority(SiteOutput.class), () -> siteOutput.onShutdown(new ShutdownEvent())),
+                Map.entry(priority(AssetFingerprints.class), () -> fingerprints.onShutdown(new ShutdownEvent()))));
+        observers.sort(Comparator.comparing(Map.Entry::getKey));
+        observers.forEach(observer -> observer.getValue().run());
+
+        Path hashed = site.resolve(url.substring(1));
+        assertEquals(css, Files.readString(hashed));
+        assertEquals(css, gunzip(site.resolve(url.substring(1) + ".gz")));
+        assertEquals(html, gunzip(site.resolve("index.html.gz")));
+        // Too small to be worth it, and no brotli command
+        assertFalse(Files.exists(site.resolve("tiny.html.gz")));
+        assertFalse(Files.exists(site.resolve("index.html.br")));
+
+        String headers = Files.readString(site.resolve("_headers"));
+        assertTrue(headers.contains("/img/*\n  Cache-Control: public, max-age=31536000, immutable"));
+        assertTrue(headers.contains(url + "\n  Cache-Control: public, max-age=31536000, immutable"));
+        assertEquals("{\n  \"/style.css\" : \"" + url + "\"\n}",
+                Files.readString(site.resolve("asset-manifest.json")).replace("\r\n", "\n").strip());
+    }
+
+    @Test
+    void testUnchangedFilesAreNotCompressedAgain() throws Exception {
+        Path site = Files.createDirectories(root.resolve("site"));
+        Files.writeString(site.resolve("index.html"), "<p>Inter-clubs</p>\n".repeat(200));
+        SiteOutput siteOutput = new SiteOutput();
+        siteOutput.generate = true;
+        siteOutput.outputDir = site;
+        PrecompressedAssets compressed = new PrecompressedAssets();
+        compressed.enabled = true;
+        compressed.dir = root.resolve("compressed");
+        compressed.extensions = List.of("html");
+        compressed.minSize = 1024;
+        compressed.brotliCommand = root.resolve("no-brotli").toString();
+        compressed.siteOutput = siteOutput;
+
+        compressed.onShutdown(new ShutdownEvent());
+        Path stored;
+        try (Stream<Path> files = Files.list(compressed.dir)) {
+            stored = files.filter(f -> f.toString().endsWith(".gz")).findFirst().orElseThrow();
+        }
+        long compressedAt = Files.getLastModifiedTime(stored).toMillis();
+        Files.delete(site.resolve("index.html.gz"));
+
+        // Next build: same content, the sibling comes back from the store
+        Files.setLastModifiedTime(stored, FileTime.fromMillis(compressedAt - 60_000));
+        compressed.onShutdown(new ShutdownEvent());
+        assertTrue(Files.exists(site.resolve("index.html.gz")));
+        assertEquals(compressedAt - 60_000, Files.getLastModifiedTime(stored).toMillis());
+    }
+
+    private static int priority(Class<?> bean) throws NoSuchMethodException {
+        Method observer = bean.getDeclaredMethod("onShutdown", ShutdownEvent.class);
+        Priority priority = observer.getParameters()[0].getAnnotation(Priority.class);
+        return priority != null ? priority.value() : DEFAULT_PRIORITY;
+    }
+
+    private static String gunzip(Path file) throws IOException {
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
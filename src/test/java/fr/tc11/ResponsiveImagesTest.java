@@ -0,0 +1,164 @@
+package fr.tc11;
+
+import io.quarkus.runtime.ShutdownEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ResponsiveImages variants, placeholders and index, on generated images.
+ */
+class ResponsiveImagesTest {
+
+    @TempDir
+    Path root;
+
+    private final List<ResponsiveImages> stages = new ArrayList<>();
+
+    @AfterEach
+    void stopExecutors() {
+        stages.forEach(stage -> stage.onShutdown(new ShutdownEvent()));
+    }
+
+    @Test
+    void testVariantsAreNarrowerThanTheOriginal() throws IOException {
+        ResponsiveImages stage = stage(true);
+
+        assertEquals(List.of(480, 960, 1200), widths(stage.variants(image("medium.jpg", 1200, 600, false))));
+        assertEquals(List.of(480, 960, 1600), widths(stage.variants(image("large.jpg", 2000, 1000, false))));
+        assertEquals(List.of(300), widths(stage.variants(image("small.jpg", 300, 200, false))));
+
+        ResponsiveImages.Processed processed = stage.variants(root.resolve("content/medium.jpg"));
+        assertEquals(1200, processed.width());
+        assertEquals(600, processed.height());
+        ResponsiveImages.Variant narrowest = processed.variants().getFirst();
+        assertTrue(narrowest.url().matches("/img/[0-9a-f]{16}-480\\.jpg"), narrowest.url());
+        BufferedImage variant = ImageIO.read(root.resolve("images").resolve(narrowest.url().substring("/img/".length())).toFile());
+        assertEquals(480, variant.getWidth());
+        assertEquals(240, variant.getHeight());
+        assertTrue(processed.srcset().startsWith(narrowest.url() + " 480w, "), processed.srcset());
+    }
+
+    @Test
+    void testImagesWithTransparencyStayPng() throws IOException {
+        ResponsiveImages.Processed processed = stage(true).variants(image("logo.png", 1000, 1000, true));
+
+        assertEquals(List.of(480, 960, 1000), widths(processed));
+        for (ResponsiveImages.Variant variant : processed.variants()) {
+            assertTrue(variant.url().endsWith(".png"), variant.url());
+            BufferedImage image = ImageIO.read(root.resolve("images").resolve(variant.url().substring("/img/".length())).toFile());
+            assertTrue(image.getColorModel().hasAlpha());
+        }
+        // Opaque PNGs become JPEG
+        assertTrue(stage(true).variants(image("photo.png", 600, 400, false)).variants().getFirst().url().endsWith(".jpg"));
+    }
+
+    @Test
+    void testPlaceholderIsATinyJpegDataUri() throws IOException {
+        ResponsiveImages.Processed processed = stage(true).variants(image("cover.jpg", 1200, 600, false));
+
+        assertTrue(processed.placeholder().startsWith("data:image/jpeg;base64,"), processed.placeholder());
+        byte[] jpeg = Base64.getDecoder().decode(processed.placeholder().substring("data:image/jpeg;base64,".length()));
+        BufferedImage placeholder = ImageIO.read(new ByteArrayInputStream(jpeg));
+        assertEquals(16, placeholder.getWidth());
+        assertEquals(8, placeholder.getHeight());
+    }
+
+    @Test
+    void testIndexIsReusedByTheNextBuild() throws IOException {
+        Path source = image("cover.jpg", 1200, 600, false);
+        ResponsiveImages.Processed first = stage(true).variants(source);
+        FileTime old = FileTime.fromMillis(0);
+        for (ResponsiveImages.Variant variant : first.variants()) {
+            Files.setLastModifiedTime(root.resolve("images").resolve(variant.url().substring("/img/".length())), old);
+        }
+
+        SiteOutput siteOutput = siteOutput(true);
+        ResponsiveImages next = stage(siteOutput);
+        ResponsiveImages.Processed second = next.variants(source);
+
+        assertEquals(first, second);
+        siteOutput.onShutdown(new ShutdownEvent());
+        for (ResponsiveImages.Variant variant : second.variants()) {
+            // Not written again, but published with the site
+            assertEquals(old, Files.getLastModifiedTime(root.resolve("images").resolve(variant.url().substring("/img/".length()))));
+            assertTrue(Files.isRegularFile(root.resolve("site").resolve(variant.url().substring(1))), variant.url());
+        }
+    }
+
+    @Test
+    void testModifiedImageIsProcessedAgain() throws IOException {
+        Path source = image("cover.jpg", 1200, 600, false);
+        ResponsiveImages.Processed first = stage(true).variants(source);
+
+        image("cover.jpg", 800, 600, false);
+        ResponsiveImages.Processed second = stage(true).variants(source);
+
+        assertNotEquals(first.variants().getFirst().url(), second.variants().getFirst().url());
+        assertEquals(List.of(480, 800), widths(second));
+    }
+
+    @Test
+    void testOriginalImagesAreKeptOutsideGeneration() throws IOException {
+        assertNull(stage(false).variants(image("cover.jpg", 1200, 600, false)));
+        assertFalse(Files.exists(root.resolve("images")));
+    }
+
+    private ResponsiveImages stage(boolean generate) {
+        return stage(siteOutput(generate));
+    }
+
+    private ResponsiveImages stage(SiteOutput siteOutput) {
+        ResponsiveImages stage = new ResponsiveImages();
+        stage.enabled = true;
+        stage.dir = root.resolve("images");
+        stage.widths = List.of(480, 960, 1600);
+        stage.quality = 0.8f;
+        stage.placeholderWidth = 16;
+        stage.siteOutput = siteOutput;
+        stage.contentHashes = new ContentHashes();
+        stages.add(stage);
+        return stage;
+    }
+
+    private SiteOutput siteOutput(boolean generate) {
+        SiteOutput siteOutput = new SiteOutput();
+        siteOutput.generate = generate;
+        siteOutput.outputDir = root.resolve("site");
+        return siteOutput;
+    }
+
+    /** Writes a two-colour image into content/ */
+    private Path image(String name, int width, int height, boolean alpha) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(0x1e, 0x6f, 0x3a, alpha ? 128 : 255));
+        graphics.fillRect(0, 0, width / 2, height);
+        graphics.setColor(new Color(0xe8, 0xd4, 0x4d, alpha ? 128 : 255));
+        graphics.fillRect(width / 2, 0, width - width / 2, height);
+        graphics.dispose();
+        Path file = Files.createDirectories(root.resolve("content")).resolve(name);
+        String format = name.endsWith(".png") ? "png" : "jpg";
+        ImageIO.write(image, format, file.toFile());
+        return file;
+    }
+
+    private static List<Integer> widths(ResponsiveImages.Processed processed) {
+        return processed.variants().stream().map(ResponsiveImages.Variant::width).toList();
+    }
+}
@@ -0,0 +1,28 @@
+// Configuration Tailwind, compilée au build (frontend-maven-plugin, voir pom.xml)
+// en public/tailwind.css : seules les classes utilisées dans les templates, le contenu
+// et les scripts du site (pas public/vendor) sont générées.
+/** @type {import('tailwindcss').Config} */
+module.exports = {
+  content: [
+    './templates/**/*.html',
+    './content/**/*.{html,md}',
+    './public/*.js'
+  ],
+  theme: {
+    extend: {
+      colors: {
+        tc: {
+          orange: 'var(--tc-orange)',
+          'orange-dark': 'var(--tc-orange-dark)',
+          yellow: 'var(--tc-yellow)',
+          'yellow-dark': 'var(--tc-yellow-dark)',
+          white: 'var(--tc-white)',
+          ink: 'var(--tc-ink)'
+        }
+      },
+      boxShadow: {
+        soft: '0 10px 25px rgba(0,0,0,.08)'
+      }
+    }
+  }
+}